@@ -0,0 +1,67 @@
+package com.krishnaproject.carrentalservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Two Hikari pools: the primary (spring.datasource.*) for writes, and a separately sized read pool
+// (app.datasource.replica.*) for read-only transactions, so a burst of catalog reads cannot take the
+// connections bookings need. Without a replica url the read pool points at the primary database; the pools
+// are still separate.
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(@Qualifier("primaryDataSourceProperties") DataSourceProperties primary) {
+        HikariDataSource pool = primary.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaPool(@Qualifier("primaryDataSourceProperties") DataSourceProperties primary,
+                                        @Qualifier("replicaDataSourceProperties") DataSourceProperties replica) {
+        DataSourceProperties source = StringUtils.hasText(replica.getUrl()) ? replica : primary;
+        HikariDataSource pool = source.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("replica");
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryPool") DataSource primaryPool,
+                                 @Qualifier("replicaPool") DataSource replicaPool) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Target.PRIMARY, primaryPool,
+                ReadWriteRoutingDataSource.Target.REPLICA, replicaPool));
+        routing.setDefaultTargetDataSource(primaryPool);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
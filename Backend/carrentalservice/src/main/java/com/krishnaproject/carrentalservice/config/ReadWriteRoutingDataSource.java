@@ -0,0 +1,45 @@
+package com.krishnaproject.carrentalservice.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+// Sends connections of read-only transactions to the replica pool and everything else (writes, and work
+// outside any transaction) to the primary. Must sit behind a LazyConnectionDataSourceProxy: the transaction
+// is only marked read-only after it has begun, so the real connection has to be picked at the first statement.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    // Every read-only transaction of this instance goes to the primary until then
+    private static volatile long allOnPrimaryUntilMs;
+
+    // Runs the block with read-only transactions on the primary, for reads that must see a write
+    // the replica may not have applied yet. Only transactions started inside the block are affected.
+    public static <T> T onPrimary(Supplier<T> block) {
+        boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(true);
+        try {
+            return block.get();
+        } finally {
+            FORCE_PRIMARY.set(previous);
+        }
+    }
+
+    // Sends all reads of this instance to the primary for the next durationMs, for caches that any read may
+    // refill (the Hibernate second-level cache) right after a write evicted them
+    public static void allOnPrimaryFor(long durationMs) {
+        allOnPrimaryUntilMs = Math.max(allOnPrimaryUntilMs, System.currentTimeMillis() + durationMs);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !FORCE_PRIMARY.get()
+                && System.currentTimeMillis() >= allOnPrimaryUntilMs
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+}
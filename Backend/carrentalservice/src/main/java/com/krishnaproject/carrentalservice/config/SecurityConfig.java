@@ -2,6 +2,7 @@ package com.krishnaproject.carrentalservice.config;
 
 
 import com.krishnaproject.carrentalservice.security.JwtFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +24,8 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Completing a server-sent event stream re-dispatches the already authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/cars/admin/**").authenticated()
                         .requestMatchers("/cars/public/**").permitAll()
                         .requestMatchers("/cars/bookings/**").authenticated()
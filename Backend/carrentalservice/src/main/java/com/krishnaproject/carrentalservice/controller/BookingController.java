@@ -2,10 +2,16 @@ package com.krishnaproject.carrentalservice.controller;
 
 import com.krishnaproject.carrentalservice.dto.*;
 import com.krishnaproject.carrentalservice.service.BookingService;
+import com.krishnaproject.carrentalservice.service.BookingStatusStreamService;
+import com.krishnaproject.carrentalservice.service.IdempotencyService;
+import com.krishnaproject.carrentalservice.service.PaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -13,19 +19,60 @@ import java.util.List;
 @RequestMapping("cars/bookings")
 public class BookingController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BookingStatusStreamService bookingStatusStreamService;
+
     @PostMapping
-    public ResponseEntity<BookingResponseDto> createBooking(@RequestBody BookingRequestDto request) {
-        BookingResponseDto response = bookingService.createBooking(request);
+    public ResponseEntity<BookingResponseDto> createBooking(
+            @RequestBody BookingRequestDto request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestAttribute(value = "username", required = false) String username) {
+        BookingResponseDto response = idempotencyService.execute("booking:" + username, idempotencyKey,
+                BookingResponseDto.class, () -> bookingService.createBooking(request));
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PostMapping("/group")
+    public ResponseEntity<List<BookingResponseDto>> createGroupBooking(
+            @RequestBody GroupBookingRequestDto request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestAttribute(value = "username", required = false) String username) {
+        BookingResponseDto[] response = idempotencyService.execute("group-booking:" + username, idempotencyKey,
+                BookingResponseDto[].class, () -> bookingService.createGroupBooking(request).toArray(new BookingResponseDto[0]));
+        return new ResponseEntity<>(List.of(response), HttpStatus.CREATED);
+    }
+
+    // Accepted for processing; the outcome shows up on the booking and on GET /payment/{paymentId}
     @PostMapping("/payment")
-    public ResponseEntity<BookingResponseDto> confirmPayment(@RequestBody PaymentRequestDto payment) {
-        BookingResponseDto response = bookingService.confirmPayment(payment);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PaymentResponseDto> confirmPayment(
+            @RequestBody PaymentRequestDto payment,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestAttribute(value = "username", required = false) String username) {
+        PaymentResponseDto response = idempotencyService.execute("payment:" + username, idempotencyKey,
+                PaymentResponseDto.class, () -> paymentService.acceptPayment(payment));
+        return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/payment/{paymentId}")
+    public ResponseEntity<PaymentResponseDto> getPayment(@PathVariable Long paymentId) {
+        return ResponseEntity.ok(paymentService.getPayment(paymentId));
+    }
+
+    // Pushes the payment deadline once, then the booking's status changes; replaces polling GET /{bookingId}
+    @GetMapping(value = "/{bookingId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBooking(@PathVariable Long bookingId) {
+        return bookingStatusStreamService.subscribe(bookingId);
     }
 
     @GetMapping("/{bookingId}")
@@ -34,7 +81,9 @@ public class BookingController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<BookingResponseDto>> getUserBookings(@PathVariable Long userId) {
-        return ResponseEntity.ok(bookingService.getUserBookings(userId));
+    public ResponseEntity<StreamingResponseBody> getUserBookings(@PathVariable Long userId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> bookingService.writeUserBookings(userId, out));
     }
 }
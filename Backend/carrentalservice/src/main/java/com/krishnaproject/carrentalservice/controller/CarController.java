@@ -1,19 +1,42 @@
 package com.krishnaproject.carrentalservice.controller;
 
+import com.krishnaproject.carrentalservice.dto.CacheRegionStatsDto;
 import com.krishnaproject.carrentalservice.dto.CarDto;
-import com.krishnaproject.carrentalservice.dto.CarWithCityDto;
+import com.krishnaproject.carrentalservice.dto.CarSearchRequestDto;
+import com.krishnaproject.carrentalservice.dto.CarSearchResultDto;
+import com.krishnaproject.carrentalservice.dto.CatalogDeltaDto;
+import com.krishnaproject.carrentalservice.dto.CatalogPageDto;
+import com.krishnaproject.carrentalservice.dto.CityAvailabilityDto;
+import com.krishnaproject.carrentalservice.dto.ReconciliationReportDto;
 import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.ReconciliationRunningException;
+import com.krishnaproject.carrentalservice.service.CarSearchService;
 import com.krishnaproject.carrentalservice.service.CarService;
+import com.krishnaproject.carrentalservice.service.CatalogCacheService;
+import com.krishnaproject.carrentalservice.service.CatalogVersionService;
+import com.krishnaproject.carrentalservice.service.FleetImportService;
+import com.krishnaproject.carrentalservice.service.InventoryReconciliationService;
+import com.krishnaproject.carrentalservice.service.ReferenceCacheService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
+import static com.krishnaproject.carrentalservice.controller.CatalogResponses.conditionalJson;
+
 @RestController
 @RequestMapping("/cars")
 public class CarController {
@@ -21,22 +44,64 @@ public class CarController {
     @Autowired
     private CarService carService;
 
+    @Autowired
+    private InventoryReconciliationService reconciliationService;
+
+    @Autowired
+    private CatalogCacheService catalogCache;
+
+    @Autowired
+    private CarSearchService carSearchService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ReferenceCacheService referenceCacheService;
+
+    @Autowired
+    private FleetImportService fleetImportService;
+
+    // Catalog reads are answered from pre-serialized bytes (see CatalogCacheService), with the catalog
+    // version as ETag so unchanged catalogs are answered with 304
     @GetMapping("/public")
-    public List<Car> getAllCars() {
-        return carService.getAllCars();
+    public ResponseEntity<Resource> getAllCars(WebRequest request) {
+        return conditionalJson(request, catalogCache.getStreamed(CatalogCacheService.ALL_CARS, carService::writeAllCars));
+    }
+
+    // Delta sync: cars changed or deleted after the version the client holds (the ETag of /public without its
+    // quotes and any "-gzip" suffix, or the version of the previous delta)
+    @GetMapping("/public/changes")
+    public ResponseEntity<CatalogDeltaDto> getCatalogChanges(@RequestParam long since) {
+        return ResponseEntity.ok(catalogVersionService.changesSince(since));
+    }
+
+    // Keyset-paginated flat catalog: constant query count and payload size per page
+    @GetMapping("/public/catalog")
+    public ResponseEntity<CatalogPageDto> getCatalogPage(
+            @RequestParam(required = false) Long cityId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(carService.getCatalogPage(cityId, afterId, size));
+    }
+
+    // Faceted search, e.g. ?brand=Toyota&brand=Honda&fuelType=Petrol&maxPrice=3000&sort=price_asc
+    @GetMapping("/public/search")
+    public ResponseEntity<CarSearchResultDto> searchCars(@ModelAttribute CarSearchRequestDto request) {
+        return ResponseEntity.ok(carSearchService.search(request));
     }
 
     // Get a single car by ID
     @GetMapping("/public/{id}")
-    public ResponseEntity<CarWithCityDto> getCarById(@PathVariable Long id) {
-        CarWithCityDto carWithCityDto = carService.getCarById(id);
-        System.out.println(carWithCityDto);
-        return new ResponseEntity<>(carWithCityDto, HttpStatus.OK);
+    public ResponseEntity<Resource> getCarById(@PathVariable Long id, WebRequest request) {
+        return conditionalJson(request,
+                catalogCache.getVersioned(CatalogCacheService.carKey(id), () -> carService.getCarById(id)));
     }
 
     @GetMapping("/public/city/{id}")
-    public ResponseEntity<List<Car>> getCarByCity(@PathVariable Long id) {
-        return ResponseEntity.ok(carService.getCarsByCity(id));
+    public ResponseEntity<Resource> getCarByCity(@PathVariable Long id, WebRequest request) {
+        return conditionalJson(request,
+                catalogCache.getStreamed(CatalogCacheService.cityKey(id), generator -> carService.writeCarsByCity(id, generator)));
     }
 
     @GetMapping("/public/city/{id}/available")
@@ -44,6 +109,12 @@ public class CarController {
         return ResponseEntity.ok(carService.getAvailableCarsByCity(id));
     }
 
+    // "N cars available today" for city pages, without loading the cars
+    @GetMapping("/public/city/{id}/availability")
+    public ResponseEntity<CityAvailabilityDto> getCityAvailability(@PathVariable Long id) {
+        return ResponseEntity.ok(carService.getCityAvailability(id));
+    }
+
     // Add a new car
     @PostMapping("/admin")
     public ResponseEntity<Car> addCar(@Valid @RequestBody CarDto carDto) {
@@ -59,6 +130,25 @@ public class CarController {
         return new ResponseEntity<>("Car updated successfully", HttpStatus.OK);
     }
 
+    // Bulk fleet import: a CSV (header row) or NDJSON (one car per line) body, read as it arrives. The response
+    // is NDJSON written while the import runs: an ERROR line per skipped row, PROGRESS after every batch, DONE.
+    // Runs on the request thread, so a long import is not cut off by the async request timeout.
+    @PostMapping(value = "/admin/import", consumes = {"text/csv", "application/x-ndjson"})
+    public void importFleet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FleetImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? FleetImportService.Format.CSV
+                : FleetImportService.Format.NDJSON;
+        Charset charset = request.getCharacterEncoding() != null
+                ? Charset.forName(request.getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        fleetImportService.importFleet(request.getInputStream(), format, charset, response.getOutputStream());
+    }
+
     // Delete a car
     @DeleteMapping("/admin/{id}")
     public ResponseEntity<String> deleteCar(@PathVariable Long id) {
@@ -66,6 +156,23 @@ public class CarController {
         return new ResponseEntity<>("Car removed successfully", HttpStatus.OK);
     }
 
+    // Compares the inventory ledger with active bookings; repair=true also fixes the drift it confirms
+    @PostMapping("/admin/inventory/reconcile")
+    public ResponseEntity<ReconciliationReportDto> reconcileInventory(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        ReconciliationReportDto report = reconciliationService.reconcile(repair);
+        if (report == null) {
+            throw new ReconciliationRunningException("An inventory reconciliation is already running");
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // Hit/miss counters of this instance's second-level cache regions
+    @GetMapping("/admin/cache/stats")
+    public ResponseEntity<List<CacheRegionStatsDto>> getCacheStatistics() {
+        return ResponseEntity.ok(referenceCacheService.regionStatistics());
+    }
+
     @GetMapping("/public/city/{cityId}/available-by-date")
     public ResponseEntity<List<Car>> getAvailableCarsByDateRange(
             @PathVariable Long cityId,
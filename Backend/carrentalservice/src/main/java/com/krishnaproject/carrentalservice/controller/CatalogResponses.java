@@ -0,0 +1,66 @@
+package com.krishnaproject.carrentalservice.controller;
+
+import com.krishnaproject.carrentalservice.service.CatalogCacheService;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+
+// Cached catalog bodies as conditional responses: the catalog version is a strong ETag, and a client that
+// already holds it gets 304 Not Modified with no body. no-cache makes browsers revalidate every time.
+// The cached gzip is sent as is to clients that accept it, and inflated on the fly for the rest. The two are
+// different bytes, so the gzip one's ETag carries a "-gzip" suffix: a strong ETag names exactly one body.
+final class CatalogResponses {
+
+    private CatalogResponses() {
+    }
+
+    static ResponseEntity<Resource> conditionalJson(WebRequest request, CatalogCacheService.Cached cached) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = "\"" + cached.version() + (gzip ? "-gzip" : "") + "\"";
+        // Sets 304 and the ETag on the response itself; a null body then sends nothing more
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(new ByteArrayResource(cached.gzipBody()));
+        }
+        try {
+            return response.body(new InputStreamResource(
+                    new GZIPInputStream(new ByteArrayInputStream(cached.gzipBody()))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")
+                    && !(parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,16 +2,23 @@ package com.krishnaproject.carrentalservice.controller;
 
 
 import com.krishnaproject.carrentalservice.dto.CityDto;
+import com.krishnaproject.carrentalservice.dto.CityNameAndIdDto;
 import com.krishnaproject.carrentalservice.dto.SpecificationsDto;
 import com.krishnaproject.carrentalservice.entity.City;
+import com.krishnaproject.carrentalservice.service.CatalogCacheService;
+import com.krishnaproject.carrentalservice.service.CitySearchService;
 import com.krishnaproject.carrentalservice.service.CityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
+import static com.krishnaproject.carrentalservice.controller.CatalogResponses.conditionalJson;
+
 @RestController
 @RequestMapping("/cars")
 public class CityController {
@@ -19,10 +26,25 @@ public class CityController {
     @Autowired
     private CityService cityService;
 
+    @Autowired
+    private CitySearchService citySearchService;
+
+    @Autowired
+    private CatalogCacheService catalogCache;
+
+    // Pre-serialized and conditional on the catalog version, like the car list
     @GetMapping("/public/cities")
-    public ResponseEntity<List<City>> getAllCities() {
-        List<City> cities = cityService.getAllCities();
-        return new ResponseEntity<>(cities, HttpStatus.OK);
+    public ResponseEntity<Resource> getAllCities(WebRequest request) {
+        return conditionalJson(request,
+                catalogCache.getVersioned(CatalogCacheService.ALL_CITIES, cityService::getAllCities));
+    }
+
+    // Autocomplete for the city picker: name, word-in-name or pin-code prefix, without loading any cars
+    @GetMapping("/public/cities/search")
+    public ResponseEntity<List<CityNameAndIdDto>> searchCities(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(citySearchService.search(q, limit));
     }
 
     @PostMapping("/admin/cities")
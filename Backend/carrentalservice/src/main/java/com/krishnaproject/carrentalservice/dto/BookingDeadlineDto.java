@@ -0,0 +1,8 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import java.time.LocalDateTime;
+
+public interface BookingDeadlineDto {
+    Long getId();
+    LocalDateTime getPaymentDeadline();
+}
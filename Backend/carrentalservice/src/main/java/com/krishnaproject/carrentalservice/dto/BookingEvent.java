@@ -0,0 +1,25 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A booking reached status. Delivered at least once; eventId increases with every transition of a booking.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEvent {
+    private Long eventId;
+    private Long bookingId;
+    private Long carId;
+    private Long userId;
+    private BookingStatus status;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDateTime paymentDeadline;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,17 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Counters of one second-level cache region since startup; entries is -1 when the provider does not report it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsDto {
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private long entries;
+}
@@ -2,8 +2,10 @@ package com.krishnaproject.carrentalservice.dto;
 
 import com.krishnaproject.carrentalservice.entity.Car;
 import com.krishnaproject.carrentalservice.entity.Specifications;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,16 +16,21 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CarDto {
+    // Sizes are the column widths (see V1 migration)
     @NotBlank(message = "Car name is required")
+    @Size(max = 255, message = "Car name must be at most 255 characters")
     private String carName;
     private double pricePerDay;
+    @Size(max = 1000, message = "Details must be at most 1000 characters")
     private String details;
     private int count;
+    @Size(max = 255, message = "Brand must be at most 255 characters")
     private String brand;
     @NotNull(message = "City ID must be provided")
     private Long cityId;
+    @Valid
     private SpecificationsDto specifications;
-    private List<String> images;
+    private List<@Size(max = 255, message = "Image URLs must be at most 255 characters") String> images;
 
     public static void carDtoToEntity(CarDto carDto, Car car) {
         car.setCarName(carDto.getCarName());
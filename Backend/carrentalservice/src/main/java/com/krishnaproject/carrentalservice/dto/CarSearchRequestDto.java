@@ -0,0 +1,21 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Values of one facet are OR-ed, facets are AND-ed; a missing facet does not filter
+@Data
+public class CarSearchRequestDto {
+    private List<String> city;
+    private List<String> brand;
+    private List<String> fuelType;
+    private List<String> transmission;
+    private List<String> seats;
+    private Double minPrice;
+    private Double maxPrice;
+    // price_asc or price_desc
+    private String sort = "price_asc";
+    private int page = 0;
+    private int size = 20;
+}
@@ -0,0 +1,18 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// facets: facet name -> value -> matching cars, counted with every other selected filter applied
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSearchResultDto {
+    private int total;
+    private List<CarSummaryDto> items;
+    private Map<String, Map<String, Integer>> facets;
+}
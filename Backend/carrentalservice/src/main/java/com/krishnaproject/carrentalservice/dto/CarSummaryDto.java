@@ -0,0 +1,23 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Flat catalog row filled straight from the query; no entity, so nothing is loaded lazily on serialization
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSummaryDto {
+    private Long id;
+    private String carName;
+    private String brand;
+    private double pricePerDay;
+    private int count;
+    private Long cityId;
+    private String cityName;
+    private String transmission;
+    private String fuelType;
+    private Integer seatingCapacity;
+    private String thumbnailUrl;
+}
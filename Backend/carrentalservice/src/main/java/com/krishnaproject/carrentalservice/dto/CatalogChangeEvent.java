@@ -0,0 +1,15 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// An admin created, updated or deleted a car or city. Raised on every instance once the write committed.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangeEvent {
+    private CatalogEntityType type;
+    private Long id;
+}
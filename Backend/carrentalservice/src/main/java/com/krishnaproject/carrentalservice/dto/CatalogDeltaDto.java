@@ -0,0 +1,19 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Cars changed or deleted after the client's version. resetRequired: the client's version is too old (or
+// unknown) for a delta and it has to reload the catalog; version is what to send as since next time.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogDeltaDto {
+    private long version;
+    private boolean resetRequired;
+    private List<CarSummaryDto> changed;
+    private List<Long> deletedIds;
+}
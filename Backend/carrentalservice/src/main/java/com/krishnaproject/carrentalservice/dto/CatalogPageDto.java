@@ -0,0 +1,16 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// nextCursor is passed back as afterId for the following page; null on the last page
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogPageDto {
+    private List<CarSummaryDto> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// City dashboard figures for one day: cars with at least one free unit, and the free units across them
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityAvailabilityDto {
+    private Long cityId;
+    private LocalDate date;
+    private int availableCars;
+    private int availableUnits;
+}
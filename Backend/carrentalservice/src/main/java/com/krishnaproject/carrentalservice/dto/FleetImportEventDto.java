@@ -0,0 +1,39 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One line of the fleet import response (NDJSON):
+//   ERROR     a row was skipped: line and message
+//   PROGRESS  after every committed batch: rowsRead, imported, failed so far
+//   DONE      the final counts and durationMs; message is set if the import stopped early
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FleetImportEventDto {
+
+    public enum Type { ERROR, PROGRESS, DONE }
+
+    private Type type;
+    private Integer line;
+    private String message;
+    private Long rowsRead;
+    private Long imported;
+    private Long failed;
+    private Long durationMs;
+
+    public static FleetImportEventDto error(int line, String message) {
+        return new FleetImportEventDto(Type.ERROR, line, message, null, null, null, null);
+    }
+
+    public static FleetImportEventDto progress(long rowsRead, long imported, long failed) {
+        return new FleetImportEventDto(Type.PROGRESS, null, null, rowsRead, imported, failed, null);
+    }
+
+    public static FleetImportEventDto done(long rowsRead, long imported, long failed, long durationMs, String message) {
+        return new FleetImportEventDto(Type.DONE, null, message, rowsRead, imported, failed, durationMs);
+    }
+}
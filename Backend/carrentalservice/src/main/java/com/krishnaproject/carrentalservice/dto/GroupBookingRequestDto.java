@@ -0,0 +1,15 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class GroupBookingRequestDto {
+    private Long userId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    // The same car id may appear more than once to book several units of that model
+    private List<Long> carIds;
+}
@@ -0,0 +1,16 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import com.krishnaproject.carrentalservice.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentResponseDto {
+    private Long paymentId;
+    private Long bookingId;
+    private PaymentStatus status;
+    private String message;
+}
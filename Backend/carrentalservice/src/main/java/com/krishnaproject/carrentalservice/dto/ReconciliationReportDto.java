@@ -0,0 +1,19 @@
+package com.krishnaproject.carrentalservice.dto;
+
+import lombok.Data;
+
+@Data
+public class ReconciliationReportDto {
+    private boolean repair;
+    private long rowsScanned;
+    private long carsScanned;
+    // Cars whose ledger differed from their bookings on the first pass
+    private long suspectCars;
+    // Cars that still differed on the locked re-check
+    private long driftedCars;
+    private long driftedDays;
+    private long repairedDays;
+    // Days on which the bookings alone already exceed the fleet size
+    private long overbookedDays;
+    private long durationMs;
+}
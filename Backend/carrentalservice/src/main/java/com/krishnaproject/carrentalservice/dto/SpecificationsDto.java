@@ -1,5 +1,6 @@
 package com.krishnaproject.carrentalservice.dto;
 
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,9 +10,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class SpecificationsDto {
     private Long id;
+    @Size(max = 255, message = "Engine must be at most 255 characters")
     private String engine;
     private int cc;
+    @Size(max = 255, message = "Transmission must be at most 255 characters")
     private String transmission;
     private int seatingCapacity;
+    @Size(max = 255, message = "Fuel type must be at most 255 characters")
     private String fuelType;
 }
\ No newline at end of file
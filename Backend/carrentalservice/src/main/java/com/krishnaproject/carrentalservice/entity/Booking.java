@@ -8,8 +8,13 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+// Finished bookings move to bookings_archive after booking.archive.age-days (see BookingArchiveService)
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_status_deadline", columnList = "status, payment_deadline"),
+        @Index(name = "idx_bookings_status_end_date", columnList = "status, end_date"),
+        @Index(name = "idx_bookings_status_updated", columnList = "status, updated_at"),
+        @Index(name = "idx_bookings_user", columnList = "user_id, id")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
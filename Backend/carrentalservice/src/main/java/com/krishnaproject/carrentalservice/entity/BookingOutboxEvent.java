@@ -0,0 +1,44 @@
+package com.krishnaproject.carrentalservice.entity;
+
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Written in the same transaction as the booking transition it describes; deleted once the relay has
+// published it. The id doubles as the event id consumers deduplicate on.
+@Entity
+@Table(name = "booking_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "car_id", nullable = false)
+    private Long carId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BookingStatus status;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDateTime paymentDeadline;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,37 @@
+package com.krishnaproject.carrentalservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// One row per car per day: how many units of the car are held by PENDING/CONFIRMED bookings on that day.
+// Car.count is the fleet size; a day is sold out once reserved reaches it.
+// Every write bumps version, so the optimistic strategy notices changes made by bulk statements too.
+@Entity
+@Table(name = "car_daily_inventory",
+        uniqueConstraints = @UniqueConstraint(name = "uk_car_daily_inventory_car_day", columnNames = {"car_id", "slot_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarDailyInventory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "car_id", nullable = false)
+    private Long carId;
+
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate slotDate;
+
+    @Column(nullable = false)
+    private int reserved;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private long version;
+}
@@ -0,0 +1,35 @@
+package com.krishnaproject.carrentalservice.entity;
+
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per catalog write, kept for the delta sync; a deleted car is a change whose car no longer exists
+@Entity
+@Table(name = "catalog_changes", indexes = @Index(name = "idx_catalog_changes_version", columnList = "version"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private CatalogEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,28 @@
+package com.krishnaproject.carrentalservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Single row (id 1) holding the catalog version. Writers lock it to take the next version, so versions are
+// handed out in commit order and a reader that has seen version n has seen every change up to n.
+@Entity
+@Table(name = "catalog_version")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+
+    public static final long ROW_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    // Changes up to this version have been pruned; older clients must reload the whole catalog
+    @Column(name = "pruned_through", nullable = false)
+    private long prunedThrough;
+}
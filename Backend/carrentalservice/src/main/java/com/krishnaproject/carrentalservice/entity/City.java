@@ -6,11 +6,16 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
+// Read on every car response and city lookup, written only by admins: kept in the second-level cache
 @Entity
 @Table(name = "cities")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "city")
 @Getter
 @Setter
 @NoArgsConstructor
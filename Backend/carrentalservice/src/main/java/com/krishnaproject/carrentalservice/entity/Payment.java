@@ -0,0 +1,49 @@
+package com.krishnaproject.carrentalservice.entity;
+
+import com.krishnaproject.carrentalservice.enums.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Card and UPI details are only passed to the gateway, never stored. A booking has at most one payment.
+@Entity
+@Table(name = "payments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payments_booking", columnNames = "booking_id"),
+        indexes = @Index(name = "idx_payments_status_updated", columnList = "status, updated_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Payment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    private String paymentMethod;
+    private Double amount;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus status;
+
+    private String failureReason;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
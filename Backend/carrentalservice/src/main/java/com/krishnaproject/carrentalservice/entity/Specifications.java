@@ -5,9 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "specifications")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "specifications")
 @Getter
 @Setter
 @NoArgsConstructor
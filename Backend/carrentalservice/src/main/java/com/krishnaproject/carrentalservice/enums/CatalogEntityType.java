@@ -0,0 +1,6 @@
+package com.krishnaproject.carrentalservice.enums;
+
+public enum CatalogEntityType {
+    CAR,
+    CITY
+}
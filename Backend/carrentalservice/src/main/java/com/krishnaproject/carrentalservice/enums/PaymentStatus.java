@@ -0,0 +1,9 @@
+package com.krishnaproject.carrentalservice.enums;
+
+public enum PaymentStatus {
+    PROCESSING,   // Accepted, waiting for the gateway
+    AUTHORIZED,   // Gateway approved and the booking is confirmed
+    DECLINED,     // Gateway refused
+    VOIDING,      // Gateway approved after the booking ended; the authorization is being voided
+    VOIDED        // Authorization voided: approved too late, or interrupted and given up by the recovery sweep
+}
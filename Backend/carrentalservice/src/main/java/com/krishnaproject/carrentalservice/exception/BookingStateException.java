@@ -0,0 +1,7 @@
+package com.krishnaproject.carrentalservice.exception;
+
+public class BookingStateException extends RuntimeException {
+    public BookingStateException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
 package com.krishnaproject.carrentalservice.exception;
 
 import com.krishnaproject.carrentalservice.dto.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -12,6 +13,8 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final String PAYMENT_RETRY_AFTER_SECONDS = "5";
+
     @ExceptionHandler(CityNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleCityNotFoundException(CityNotFoundException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -29,6 +32,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(new ErrorResponse(true, ex.getMessage(), HttpStatus.BAD_REQUEST.value()));
     }
+
+    // Requests that lost to the current state: sold-out days, a booking no longer awaiting payment, a busy job
+    @ExceptionHandler({InventoryUnavailableException.class, BookingStateException.class,
+            ReconciliationRunningException.class})
+    public ResponseEntity<ErrorResponse> handleConflict(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse(true, ex.getMessage(), HttpStatus.CONFLICT.value()));
+    }
+
+    @ExceptionHandler(PaymentBusyException.class)
+    public ResponseEntity<ErrorResponse> handlePaymentBusy(PaymentBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, PAYMENT_RETRY_AFTER_SECONDS)
+                .body(new ErrorResponse(true, ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
         StringBuilder messages = new StringBuilder();
@@ -55,6 +74,13 @@ public class GlobalExceptionHandler {
                         HttpStatus.CONFLICT.value()));
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyConflict(IdempotencyConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse(true, e.getMessage(),
+                        HttpStatus.CONFLICT.value()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneric(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,7 @@
+package com.krishnaproject.carrentalservice.exception;
+
+public class InventoryUnavailableException extends RuntimeException {
+    public InventoryUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.krishnaproject.carrentalservice.exception;
+
+public class PaymentBusyException extends RuntimeException {
+    public PaymentBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.krishnaproject.carrentalservice.exception;
+
+public class ReconciliationRunningException extends RuntimeException {
+    public ReconciliationRunningException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,220 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.util.AvailabilityIndex.CityAvailability;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Reads that fill the in-memory availability index: the fleet, and the ledger days that hold any units.
+// cityAvailability answers the city summary directly when the index cannot.
+@Repository
+public class AvailabilityJdbcRepository {
+
+    public record CarCapacity(long carId, long cityId, int capacity) {}
+
+    public interface ReservedConsumer {
+        void accept(long carId, LocalDate day, int reserved);
+    }
+
+    // A ledger change still waiting in car_inventory_queue
+    public interface QueuedConsumer {
+        void accept(long carId, LocalDate startDate, LocalDate endDate, int delta);
+    }
+
+    // The booking events a snapshot already contains: those still in the outbox and those relayed within the
+    // retention, read in the snapshot itself. An event committed after it is in neither, whatever its id.
+    public record EventWatermark(Set<Long> eventIds) {
+        public boolean contains(long eventId) {
+            return eventIds.contains(eventId);
+        }
+    }
+
+    public record ReservedSnapshot(long rows, EventWatermark watermark) {}
+
+    // Some cars as of one moment: their rows (a deleted car is missing) and the events already reflected
+    public record CarsSnapshot(List<CarCapacity> cars, EventWatermark watermark) {}
+
+    private static final String CARS_SQL = "SELECT id, city_id, count FROM cars";
+
+    private static final String RESERVED_SQL = "SELECT car_id, slot_date, reserved FROM car_daily_inventory " +
+            "WHERE slot_date BETWEEN ? AND ? AND reserved > 0";
+
+    private static final String QUEUED_SQL = "SELECT car_id, start_date, end_date, delta FROM car_inventory_queue " +
+            "WHERE end_date >= ? AND start_date <= ?";
+
+    private static final String WATERMARK_SQL =
+            "SELECT id FROM booking_outbox UNION ALL SELECT id FROM relayed_booking_events";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<CarCapacity> findAllCars() {
+        return jdbcTemplate.query(CARS_SQL,
+                (rs, row) -> new CarCapacity(rs.getLong(1), rs.getLong(2), rs.getInt(3)));
+    }
+
+    public List<CarCapacity> findCar(long carId) {
+        return jdbcTemplate.query(CARS_SQL + " WHERE id = ?",
+                (rs, row) -> new CarCapacity(rs.getLong(1), rs.getLong(2), rs.getInt(3)), carId);
+    }
+
+    // The event watermark, the ledger and the changes still queued for it, all read in one REPEATABLE READ
+    // transaction so they describe the same moment. The ledger is a forward-only MySQL result set: the rows are
+    // handed over one at a time, never buffered as a whole.
+    public ReservedSnapshot streamReserved(LocalDate from, LocalDate to, ReservedConsumer ledger, QueuedConsumer queued) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setAutoCommit(false);
+            try {
+                EventWatermark watermark = readWatermark(connection);
+
+                long rows = 0;
+                try (PreparedStatement statement = connection.prepareStatement(RESERVED_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                    statement.setDate(1, Date.valueOf(from));
+                    statement.setDate(2, Date.valueOf(to));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            ledger.accept(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getInt(3));
+                            rows++;
+                        }
+                    }
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(QUEUED_SQL)) {
+                    statement.setDate(1, Date.valueOf(from));
+                    statement.setDate(2, Date.valueOf(to));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            queued.accept(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getDate(3).toLocalDate(),
+                                    rs.getInt(4));
+                        }
+                    }
+                }
+                return new ReservedSnapshot(rows, watermark);
+            } finally {
+                // Read-only; ends the snapshot before the connection goes back to the pool
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("stream reserved days", RESERVED_SQL, e);
+        }
+    }
+
+    // The first read of the transaction, which fixes its snapshot
+    private static EventWatermark readWatermark(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(WATERMARK_SQL)) {
+            Set<Long> eventIds = new HashSet<>();
+            while (rs.next()) {
+                eventIds.add(rs.getLong(1));
+            }
+            return new EventWatermark(eventIds);
+        }
+    }
+
+    // streamReserved for the given cars only: the same reads, plus the cars' own rows, in one snapshot.
+    // The watermark only lists the events of these cars
+    public CarsSnapshot carsSnapshot(List<Long> carIds, LocalDate from, LocalDate to, ReservedConsumer ledger,
+                                     QueuedConsumer queued) {
+        String ids = carIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setAutoCommit(false);
+            try {
+                // The first read fixes the snapshot, as in streamReserved
+                Set<Long> eventIds = new HashSet<>();
+                try (PreparedStatement statement = connection.prepareStatement("SELECT id FROM booking_outbox " +
+                        "WHERE car_id IN (" + ids + ") UNION ALL " +
+                        "SELECT id FROM relayed_booking_events WHERE car_id IN (" + ids + ")")) {
+                    bindIds(statement, 1, carIds);
+                    bindIds(statement, carIds.size() + 1, carIds);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            eventIds.add(rs.getLong(1));
+                        }
+                    }
+                }
+
+                List<CarCapacity> cars = new ArrayList<>();
+                try (PreparedStatement statement = connection.prepareStatement(CARS_SQL + " WHERE id IN (" + ids + ")")) {
+                    bindIds(statement, 1, carIds);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            cars.add(new CarCapacity(rs.getLong(1), rs.getLong(2), rs.getInt(3)));
+                        }
+                    }
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(RESERVED_SQL +
+                        " AND car_id IN (" + ids + ")")) {
+                    statement.setDate(1, Date.valueOf(from));
+                    statement.setDate(2, Date.valueOf(to));
+                    bindIds(statement, 3, carIds);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            ledger.accept(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getInt(3));
+                        }
+                    }
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(QUEUED_SQL +
+                        " AND car_id IN (" + ids + ")")) {
+                    statement.setDate(1, Date.valueOf(from));
+                    statement.setDate(2, Date.valueOf(to));
+                    bindIds(statement, 3, carIds);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            queued.accept(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getDate(3).toLocalDate(),
+                                    rs.getInt(4));
+                        }
+                    }
+                }
+                return new CarsSnapshot(cars, new EventWatermark(eventIds));
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("read cars snapshot", RESERVED_SQL, e);
+        }
+    }
+
+    private static void bindIds(PreparedStatement statement, int firstIndex, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            statement.setLong(firstIndex + i, ids.get(i));
+        }
+    }
+
+    // Cars with a free unit and the free units themselves, counted in the database instead of loading the cars
+    public CityAvailability cityAvailability(long cityId, LocalDate day) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), COALESCE(SUM(c.count - COALESCE(i.reserved, 0)), 0) " +
+                        "FROM cars c LEFT JOIN car_daily_inventory i ON i.car_id = c.id AND i.slot_date = ? " +
+                        "WHERE c.city_id = ? AND c.count > COALESCE(i.reserved, 0)",
+                (rs, row) -> new CityAvailability(rs.getInt(1), rs.getInt(2)), Date.valueOf(day), cityId);
+    }
+
+    public List<CarCapacity> findCarsInCity(long cityId) {
+        return jdbcTemplate.query(CARS_SQL + " WHERE city_id = ?",
+                (rs, row) -> new CarCapacity(rs.getLong(1), rs.getLong(2), rs.getInt(3)), cityId);
+    }
+}
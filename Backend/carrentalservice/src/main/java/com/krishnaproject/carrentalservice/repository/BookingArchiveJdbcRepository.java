@@ -0,0 +1,155 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// bookings_archive (see V3 migration): moving finished bookings out of bookings, its monthly partitions, and
+// reads that see both tables. Archived rows come back as detached Bookings whose car only carries id, name
+// and brand (the name and brand are null if the car was deleted since). Only bookings that ended are archived,
+// so lookups fall back here just to tell "ended" from "not found": getBookingById (and with it the SSE
+// snapshot), payment acceptance and cancellation. Expiry skips a missing booking, which is the same outcome.
+@Repository
+public class BookingArchiveJdbcRepository {
+
+    private static final String ARCHIVE_TABLE = "bookings_archive";
+    private static final String MIN_PARTITION = "p_min";
+    private static final String FUTURE_PARTITION = "p_future";
+
+    private static final String HISTORY_COLUMNS = "b.id, b.car_id, c.car_name, c.brand, b.user_id, b.start_date, " +
+            "b.end_date, b.total_price, b.status, b.created_at, b.updated_at, b.payment_deadline";
+
+    // Each branch walks its (user_id, id) index for at most one chunk; the outer sort only merges the two
+    private static final String USER_HISTORY_SQL =
+            "SELECT * FROM (" +
+            "(SELECT " + HISTORY_COLUMNS + " FROM bookings b JOIN cars c ON c.id = b.car_id " +
+            "WHERE b.user_id = :userId AND b.id > :afterId ORDER BY b.id LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT " + HISTORY_COLUMNS + " FROM bookings_archive b LEFT JOIN cars c ON c.id = b.car_id " +
+            "WHERE b.user_id = :userId AND b.id > :afterId ORDER BY b.id LIMIT :limit)" +
+            ") history ORDER BY id LIMIT :limit";
+
+    private static final RowMapper<Booking> BOOKING_ROW = (rs, row) -> {
+        Car car = new Car();
+        car.setId(rs.getLong("car_id"));
+        car.setCarName(rs.getString("car_name"));
+        car.setBrand(rs.getString("brand"));
+
+        Booking booking = new Booking();
+        booking.setId(rs.getLong("id"));
+        booking.setCar(car);
+        booking.setUserId(rs.getLong("user_id"));
+        Date start = rs.getDate("start_date");
+        booking.setStartDate(start != null ? start.toLocalDate() : null);
+        Date end = rs.getDate("end_date");
+        booking.setEndDate(end != null ? end.toLocalDate() : null);
+        double totalPrice = rs.getDouble("total_price");
+        booking.setTotalPrice(rs.wasNull() ? null : totalPrice);
+        String status = rs.getString("status");
+        booking.setStatus(status != null ? BookingStatus.valueOf(status) : null);
+        booking.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        booking.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        booking.setPaymentDeadline(toLocalDateTime(rs.getTimestamp("payment_deadline")));
+        return booking;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // Oldest finished bookings of one status, row-locked; rows leave the index range once moved, so every
+    // chunk starts at the front of it and no cursor is needed
+    public List<Long> lockArchivable(BookingStatus status, LocalDateTime before, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM bookings WHERE status = ? AND updated_at < ? " +
+                        "ORDER BY updated_at LIMIT ? FOR UPDATE",
+                Long.class, status.name(), Timestamp.valueOf(before), limit);
+    }
+
+    // Copies the bookings into the archive and deletes them from bookings; call in one transaction
+    public int moveToArchive(List<Long> ids, LocalDateTime archivedAt) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("archivedAt", Timestamp.valueOf(archivedAt));
+        namedJdbcTemplate.update("INSERT INTO bookings_archive (id, car_id, user_id, start_date, end_date, " +
+                "total_price, status, created_at, updated_at, payment_deadline, archived_at) " +
+                "SELECT id, car_id, user_id, start_date, end_date, total_price, status, " +
+                "COALESCE(created_at, updated_at, :archivedAt), updated_at, payment_deadline, :archivedAt " +
+                "FROM bookings WHERE id IN (:ids)", params);
+        return namedJdbcTemplate.update("DELETE FROM bookings WHERE id IN (:ids)", params);
+    }
+
+    public Optional<LocalDateTime> oldestArchivable(List<String> statuses, LocalDateTime before) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("statuses", statuses)
+                .addValue("before", Timestamp.valueOf(before));
+        Timestamp oldest = namedJdbcTemplate.queryForObject("SELECT MIN(created_at) FROM bookings " +
+                "WHERE status IN (:statuses) AND updated_at < :before", params, Timestamp.class);
+        return Optional.ofNullable(toLocalDateTime(oldest));
+    }
+
+    // Months that already have their own partition, oldest first
+    public List<YearMonth> monthPartitions() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME NOT IN (?, ?) " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, ARCHIVE_TABLE, MIN_PARTITION, FUTURE_PARTITION)) {
+            months.add(YearMonth.of(Integer.parseInt(name.substring(1, 5)), Integer.parseInt(name.substring(5, 7))));
+        }
+        return months;
+    }
+
+    // Splits p_future so the month gets its own partition. Months must be added in order, after the last one.
+    // The first month also moves p_min's bound up to its start, so rows created before it land in p_min rather
+    // than in that month. DDL commits implicitly, so this must not run inside a transaction
+    public void addMonthPartition(YearMonth month, boolean first) {
+        String name = String.format("p%04d%02d", month.getYear(), month.getMonthValue());
+        String monthPartition = "PARTITION " + name + " VALUES LESS THAN (" + monthStart(month.plusMonths(1)) + "), " +
+                "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))";
+        if (first) {
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " REORGANIZE PARTITION " + MIN_PARTITION + ", " +
+                    FUTURE_PARTITION + " INTO (PARTITION " + MIN_PARTITION + " VALUES LESS THAN (" + monthStart(month) +
+                    "), " + monthPartition);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION +
+                    " INTO (" + monthPartition);
+        }
+    }
+
+    private static String monthStart(YearMonth month) {
+        return "'" + month.atDay(1) + " 00:00:00'";
+    }
+
+    // Live and archived bookings of the user after afterId, in id order
+    public List<Booking> findUserHistoryChunk(Long userId, long afterId, int limit) {
+        return namedJdbcTemplate.query(USER_HISTORY_SQL, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("afterId", afterId)
+                .addValue("limit", limit), BOOKING_ROW);
+    }
+
+    public Optional<Booking> findArchived(Long bookingId) {
+        return jdbcTemplate.query("SELECT " + HISTORY_COLUMNS + " FROM bookings_archive b " +
+                "LEFT JOIN cars c ON c.id = b.car_id WHERE b.id = ?", BOOKING_ROW, bookingId).stream().findFirst();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// IDENTITY ids stop Hibernate from batching inserts; with rewriteBatchedStatements the driver sends
+// this batch as one multi-row INSERT and returns the generated ids in order
+@Repository
+public class BookingJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO bookings (car_id, user_id, start_date, end_date, total_price, status, " +
+            "created_at, updated_at, payment_deadline) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Fills in id and the timestamps that @PrePersist would have set
+    public void insertAll(List<Booking> bookings) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Booking booking : bookings) {
+            booking.setCreatedAt(now);
+            booking.setUpdatedAt(now);
+            booking.setPaymentDeadline(now.plusMinutes(5));
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Booking booking : bookings) {
+                    statement.setLong(1, booking.getCar().getId());
+                    statement.setLong(2, booking.getUserId());
+                    statement.setDate(3, Date.valueOf(booking.getStartDate()));
+                    statement.setDate(4, Date.valueOf(booking.getEndDate()));
+                    statement.setDouble(5, booking.getTotalPrice());
+                    statement.setString(6, booking.getStatus().name());
+                    statement.setTimestamp(7, Timestamp.valueOf(booking.getCreatedAt()));
+                    statement.setTimestamp(8, Timestamp.valueOf(booking.getUpdatedAt()));
+                    statement.setTimestamp(9, Timestamp.valueOf(booking.getPaymentDeadline()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Booking booking : bookings) {
+                        keys.next();
+                        booking.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
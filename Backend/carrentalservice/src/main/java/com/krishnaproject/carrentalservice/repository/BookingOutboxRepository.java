@@ -0,0 +1,39 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.entity.BookingOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingOutboxRepository extends JpaRepository<BookingOutboxEvent, Long> {
+
+    // One event per booking that is now in status, copied from the booking row in a single statement
+    @Modifying
+    @Query(value = "INSERT INTO booking_outbox " +
+            "(booking_id, car_id, user_id, status, start_date, end_date, payment_deadline, occurred_at) " +
+            "SELECT b.id, b.car_id, b.user_id, b.status, b.start_date, b.end_date, b.payment_deadline, :now " +
+            "FROM bookings b WHERE b.id IN (:bookingIds) AND b.status = :status ORDER BY b.id", nativeQuery = true)
+    int recordAll(@Param("bookingIds") Collection<Long> bookingIds,
+                  @Param("status") String status,
+                  @Param("now") LocalDateTime now);
+
+    List<BookingOutboxEvent> findByOrderByIdAsc(Pageable batch);
+
+    // Call in the transaction that deletes the relayed rows, before the delete
+    @Modifying
+    @Query(value = "INSERT INTO relayed_booking_events (id, car_id, relayed_at) " +
+            "SELECT id, car_id, :now FROM booking_outbox WHERE id IN (:ids)", nativeQuery = true)
+    int recordRelayed(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM relayed_booking_events WHERE relayed_at < :before", nativeQuery = true)
+    int pruneRelayed(@Param("before") LocalDateTime before);
+}
@@ -1,25 +1,55 @@
 package com.krishnaproject.carrentalservice.repository;
 
+import com.krishnaproject.carrentalservice.dto.BookingDeadlineDto;
 import com.krishnaproject.carrentalservice.entity.Booking;
 import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    List<Booking> findByUserId(Long userId);
-
     List<Booking> findByCarIdAndStatus(Long carId, BookingStatus status);
 
-    @Query("SELECT b FROM Booking b WHERE b.status = 'PENDING' AND b.paymentDeadline < :now")
-    List<Booking> findExpiredPendingBookings(@Param("now") LocalDateTime now);
+    // Keyset chunk of overdue holds, row-locked so a payment cannot confirm them mid-chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.status = 'PENDING' AND b.paymentDeadline < :now " +
+            "AND b.id > :afterId ORDER BY b.id")
+    List<Booking> findExpiredPendingBookings(@Param("now") LocalDateTime now,
+                                             @Param("afterId") Long afterId,
+                                             Pageable chunk);
+
+    @Query("SELECT b.id AS id, b.paymentDeadline AS paymentDeadline FROM Booking b WHERE b.status = 'PENDING'")
+    List<BookingDeadlineDto> findPendingDeadlines();
+
+    // Only moves the booking if it is still in the expected state, so concurrent transitions cannot both win
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :to, b.updatedAt = :now WHERE b.id = :id AND b.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") BookingStatus from,
+                   @Param("to") BookingStatus to,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :to, b.updatedAt = :now WHERE b.id IN :ids AND b.status = :from")
+    int transitionAll(@Param("ids") List<Long> ids,
+                      @Param("from") BookingStatus from,
+                      @Param("to") BookingStatus to,
+                      @Param("now") LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b WHERE b.status = 'CONFIRMED' AND b.endDate < :today")
-    List<Booking> findCompletedBookings(@Param("today") LocalDateTime today);
+    @Query("SELECT b.id FROM Booking b WHERE b.status = 'CONFIRMED' AND b.endDate < :today " +
+            "AND b.id > :afterId ORDER BY b.id")
+    List<Long> findCompletedBookings(@Param("today") LocalDate today,
+                                     @Param("afterId") Long afterId,
+                                     Pageable chunk);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.entity.CarDailyInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CarDailyInventoryRepository extends JpaRepository<CarDailyInventory, Long> {
+
+    List<CarDailyInventory> findByCarIdAndSlotDateBetweenOrderBySlotDate(Long carId, LocalDate startDate, LocalDate endDate);
+
+    List<CarDailyInventory> findByCarIdAndSlotDateGreaterThanEqual(Long carId, LocalDate day);
+
+    // Takes the units on every day that still has room for them; callers compare the result with the number of days
+    @Modifying
+    @Query("UPDATE CarDailyInventory i SET i.reserved = i.reserved + :units, i.version = i.version + 1 " +
+            "WHERE i.carId = :carId AND i.slotDate BETWEEN :startDate AND :endDate AND i.reserved + :units <= :capacity")
+    int reserveSlots(@Param("carId") Long carId,
+                     @Param("startDate") LocalDate startDate,
+                     @Param("endDate") LocalDate endDate,
+                     @Param("units") int units,
+                     @Param("capacity") int capacity);
+
+    @Modifying
+    @Query("UPDATE CarDailyInventory i SET i.reserved = i.reserved - 1, i.version = i.version + 1 " +
+            "WHERE i.carId = :carId AND i.slotDate BETWEEN :startDate AND :endDate AND i.reserved > 0")
+    int releaseSlots(@Param("carId") Long carId,
+                     @Param("startDate") LocalDate startDate,
+                     @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM CarDailyInventory i WHERE i.slotDate < :day")
+    int deleteSlotsBefore(@Param("day") LocalDate day);
+}
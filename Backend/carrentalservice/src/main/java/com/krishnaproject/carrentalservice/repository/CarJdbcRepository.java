@@ -0,0 +1,112 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.entity.Specifications;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bulk car inserts for the fleet import. Like BookingJdbcRepository: IDENTITY ids keep Hibernate from batching,
+// while here each table is one batch that rewriteBatchedStatements sends as a multi-row INSERT, and the
+// generated ids come back in row order. Three statements per batch of cars instead of three per car.
+@Repository
+public class CarJdbcRepository {
+
+    private static final String INSERT_SPECIFICATIONS_SQL =
+            "INSERT INTO specifications (engine, cc, transmission, seating_capacity, fuel_type) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CAR_SQL =
+            "INSERT INTO cars (car_name, price_per_day, details, count, brand, city_id, specifications_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_IMAGE_SQL = "INSERT INTO car_images (car_id, image_url) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Fills in the ids of the cars and their specifications; every car must have its city set
+    public void insertAll(List<Car> cars) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            List<Specifications> specifications = new ArrayList<>();
+            for (Car car : cars) {
+                if (car.getSpecifications() != null) {
+                    specifications.add(car.getSpecifications());
+                }
+            }
+
+            if (!specifications.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SPECIFICATIONS_SQL,
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    for (Specifications spec : specifications) {
+                        statement.setString(1, spec.getEngine());
+                        statement.setInt(2, spec.getCc());
+                        statement.setString(3, spec.getTransmission());
+                        statement.setInt(4, spec.getSeatingCapacity());
+                        statement.setString(5, spec.getFuelType());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Specifications spec : specifications) {
+                            keys.next();
+                            spec.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_CAR_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Car car : cars) {
+                    statement.setString(1, car.getCarName());
+                    statement.setDouble(2, car.getPricePerDay());
+                    statement.setString(3, car.getDetails());
+                    statement.setInt(4, car.getCount());
+                    statement.setString(5, car.getBrand());
+                    statement.setLong(6, car.getCity().getId());
+                    if (car.getSpecifications() != null) {
+                        statement.setLong(7, car.getSpecifications().getId());
+                    } else {
+                        statement.setNull(7, Types.BIGINT);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Car car : cars) {
+                        keys.next();
+                        car.setId(keys.getLong(1));
+                    }
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_IMAGE_SQL)) {
+                int images = 0;
+                for (Car car : cars) {
+                    if (car.getImages() == null) {
+                        continue;
+                    }
+                    for (String image : car.getImages()) {
+                        statement.setLong(1, car.getId());
+                        statement.setString(2, image);
+                        statement.addBatch();
+                        images++;
+                    }
+                }
+                if (images > 0) {
+                    statement.executeBatch();
+                }
+            }
+            return null;
+        });
+    }
+}
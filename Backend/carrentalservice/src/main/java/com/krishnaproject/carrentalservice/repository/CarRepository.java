@@ -1,7 +1,9 @@
 package com.krishnaproject.carrentalservice.repository;
 
+import com.krishnaproject.carrentalservice.dto.CarSummaryDto;
 import com.krishnaproject.carrentalservice.entity.Car;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,21 +20,57 @@ public interface CarRepository extends JpaRepository<Car, Long> {
 
     List<Car> findByCityId(Long cityId);
 
+    // Keyset chunks for streaming the fleet
+    List<Car> findByIdGreaterThanOrderById(Long afterId, Pageable chunk);
+
+    List<Car> findByCityIdAndIdGreaterThanOrderById(Long cityId, Long afterId, Pageable chunk);
+
     // ADDED: Pessimistic write lock for atomic car count operations
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT c FROM Car c WHERE c.id = :id")
     Optional<Car> findByIdWithLock(@Param("id") Long id);
 
-    @Query("SELECT c FROM Car c WHERE c.city.id = :cityId AND c.count > 0")
-    List<Car> findAvailableCarsByCity(@Param("cityId") Long cityId);
+    // Locks every car in one statement, in primary key order, so concurrent group bookings cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Car c WHERE c.id IN :ids ORDER BY c.id")
+    List<Car> findAllByIdWithLock(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT c FROM Car c WHERE c.city.id = :cityId AND " +
-            "c.count > (SELECT COUNT(b) FROM Booking b WHERE b.car.id = c.id AND " +
-            "b.status = 'CONFIRMED' AND " +
-            "((b.startDate <= :endDate AND b.endDate >= :startDate)))")
+    @Query("SELECT c FROM Car c WHERE c.city.id = :cityId AND c.count > 0 AND NOT EXISTS (" +
+            "SELECT i.id FROM CarDailyInventory i WHERE i.carId = c.id AND " +
+            "i.slotDate = :day AND i.reserved >= c.count)")
+    List<Car> findAvailableCarsByCity(@Param("cityId") Long cityId, @Param("day") LocalDate day);
+
+    // A car is available when no day of the range is sold out in the inventory ledger
+    @Query("SELECT c FROM Car c WHERE c.city.id = :cityId AND c.count > 0 AND NOT EXISTS (" +
+            "SELECT i.id FROM CarDailyInventory i WHERE i.carId = c.id AND " +
+            "i.slotDate BETWEEN :startDate AND :endDate AND i.reserved >= c.count)")
     List<Car> findAvailableCarsByCityAndDateRange(
             @Param("cityId") Long cityId,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
-}
\ No newline at end of file
+
+    // Keyset catalog page: one statement per page, with the first image as a correlated subquery
+    String CATALOG_SELECT = "SELECT new com.krishnaproject.carrentalservice.dto.CarSummaryDto(" +
+            "c.id, c.carName, c.brand, c.pricePerDay, c.count, city.id, city.cityName, " +
+            "s.transmission, s.fuelType, s.seatingCapacity, " +
+            "(SELECT MIN(img) FROM Car c2 JOIN c2.images img WHERE c2.id = c.id)) " +
+            "FROM Car c JOIN c.city city LEFT JOIN c.specifications s ";
+
+    @Query(CATALOG_SELECT + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CarSummaryDto> findCatalogPage(@Param("afterId") Long afterId, Pageable page);
+
+    @Query(CATALOG_SELECT + "WHERE c.id IN :ids ORDER BY c.id")
+    List<CarSummaryDto> findCatalogRows(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id FROM Car c WHERE c.city.id IN :cityIds")
+    List<Long> findIdsByCityIds(@Param("cityIds") Collection<Long> cityIds);
+
+    @Query(CATALOG_SELECT + "WHERE c.id = :id")
+    Optional<CarSummaryDto> findCatalogRow(@Param("id") Long id);
+
+    @Query(CATALOG_SELECT + "WHERE city.id = :cityId AND c.id > :afterId ORDER BY c.id")
+    List<CarSummaryDto> findCatalogPageByCity(@Param("cityId") Long cityId,
+                                              @Param("afterId") Long afterId,
+                                              Pageable page);
+}
@@ -0,0 +1,29 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.entity.CatalogChange;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    @Query("SELECT DISTINCT c.entityId FROM CatalogChange c " +
+            "WHERE c.entityType = :type AND c.version > :since AND c.version <= :until")
+    List<Long> findChangedIds(@Param("type") CatalogEntityType type,
+                              @Param("since") long since,
+                              @Param("until") long until);
+
+    @Query("SELECT MAX(c.version) FROM CatalogChange c WHERE c.changedAt < :before")
+    Long findMaxVersionBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM CatalogChange c WHERE c.version <= :version")
+    int deleteThroughVersion(@Param("version") long version);
+}
@@ -0,0 +1,26 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import com.krishnaproject.carrentalservice.entity.CatalogVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM CatalogVersion v WHERE v.id = :id")
+    Optional<CatalogVersion> findByIdWithLock(@Param("id") Long id);
+
+    // Every instance runs this on startup; only the first one creates the row
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO catalog_version (id, version, pruned_through) VALUES (:id, 0, 0)",
+            nativeQuery = true)
+    void createIfMissing(@Param("id") Long id);
+}
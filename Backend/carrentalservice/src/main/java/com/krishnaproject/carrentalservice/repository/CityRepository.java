@@ -3,8 +3,11 @@ package com.krishnaproject.carrentalservice.repository;
 import com.krishnaproject.carrentalservice.dto.CityNameAndIdDto;
 import com.krishnaproject.carrentalservice.entity.Car;
 import com.krishnaproject.carrentalservice.entity.City;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -20,7 +23,14 @@ public interface CityRepository extends JpaRepository<City, Long> {
     @Query("SELECT c FROM City c LEFT JOIN FETCH c.cars WHERE c.id = :cityId")
     Optional<City> findCityWithCars(@Param("cityId") Long cityId);
 
+    // Both cached in the city-queries region; any write to cities invalidates them
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "city-queries")})
     List<CityNameAndIdDto> findAllProjectedBy();
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "city-queries")})
     Optional<City> findByPinCode(Long pinCode);
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Batched ledger writes that Spring Data cannot express as one round trip, and the queue of ledger changes
+// that the write-behind strategies apply later
+@Repository
+public class InventoryLedgerJdbcRepository {
+
+    public record SlotKey(Long carId, LocalDate slotDate) {}
+
+    // A ledger change waiting in car_inventory_queue for InventoryWriteBehind
+    public record QueuedDelta(long id, Long carId, LocalDate startDate, LocalDate endDate, int delta) {}
+
+    // A day row as the optimistic strategy reads it
+    public record VersionedSlot(long id, Long carId, LocalDate slotDate, int reserved, long version) {}
+
+    private static final String ENSURE_SLOT_SQL =
+            "INSERT IGNORE INTO car_daily_inventory (car_id, slot_date, reserved) VALUES (?, ?, 0)";
+
+    private static final String APPLY_DELTA_SQL =
+            "INSERT INTO car_daily_inventory (car_id, slot_date, reserved) VALUES (?, ?, GREATEST(?, 0)) " +
+            "ON DUPLICATE KEY UPDATE reserved = GREATEST(reserved + ?, 0), version = version + 1";
+
+    private static final String QUEUE_DELTA_SQL =
+            "INSERT INTO car_inventory_queue (car_id, start_date, end_date, delta, queued_at) VALUES (?, ?, ?, ?, NOW(6))";
+
+    private static final RowMapper<QueuedDelta> QUEUED_DELTA_ROW = (rs, row) -> new QueuedDelta(
+            rs.getLong("id"), rs.getLong("car_id"), rs.getDate("start_date").toLocalDate(),
+            rs.getDate("end_date").toLocalDate(), rs.getInt("delta"));
+
+    private static final RowMapper<VersionedSlot> VERSIONED_SLOT_ROW = (rs, row) -> new VersionedSlot(
+            rs.getLong("id"), rs.getLong("car_id"), rs.getDate("slot_date").toLocalDate(),
+            rs.getInt("reserved"), rs.getLong("version"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // Creates the missing day rows of a range for each car in one multi-row INSERT (existing rows are left
+    // untouched). The days are listed here because a recursive CTE stops at cte_max_recursion_depth (1000 days)
+    public void ensureSlots(Collection<Long> carIds, LocalDate startDate, LocalDate endDate) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long carId : carIds) {
+            for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                rows.add(new Object[]{carId, Date.valueOf(day)});
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ENSURE_SLOT_SQL, rows);
+        }
+    }
+
+    // Creates just these day rows. INSERT IGNORE share-locks every row that already exists, so a caller that
+    // must not lock rows it only read lists the missing ones here instead of using the range form
+    public void ensureSlots(Collection<SlotKey> slots) {
+        List<Object[]> rows = new ArrayList<>();
+        for (SlotKey slot : slots) {
+            rows.add(new Object[]{slot.carId(), Date.valueOf(slot.slotDate())});
+        }
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ENSURE_SLOT_SQL, rows);
+        }
+    }
+
+    // Day rows of the cars in the range, in (car, day) order, read without locks
+    public List<VersionedSlot> findVersionedSlots(Collection<Long> carIds, LocalDate startDate, LocalDate endDate) {
+        return namedJdbcTemplate.query("SELECT id, car_id, slot_date, reserved, version FROM car_daily_inventory " +
+                "WHERE car_id IN (:carIds) AND slot_date BETWEEN :startDate AND :endDate ORDER BY car_id, slot_date",
+                Map.of("carIds", carIds, "startDate", Date.valueOf(startDate), "endDate", Date.valueOf(endDate)),
+                VERSIONED_SLOT_ROW);
+    }
+
+    // Adds units to the row if nobody changed it since it was read; false when the version moved on
+    public boolean addIfUnchanged(VersionedSlot slot, int units) {
+        return jdbcTemplate.update("UPDATE car_daily_inventory SET reserved = reserved + ?, version = version + 1 " +
+                "WHERE id = ? AND version = ?", units, slot.id(), slot.version()) == 1;
+    }
+
+    // Takes back units added by addIfUnchanged in the same transaction, which still holds the row lock
+    public void subtract(VersionedSlot slot, int units) {
+        jdbcTemplate.update("UPDATE car_daily_inventory SET reserved = reserved - ?, version = version + 1 " +
+                "WHERE id = ?", units, slot.id());
+    }
+
+    public void queueDelta(Long carId, LocalDate startDate, LocalDate endDate, int delta) {
+        jdbcTemplate.update(QUEUE_DELTA_SQL, carId, Date.valueOf(startDate), Date.valueOf(endDate), delta);
+    }
+
+    // Oldest queued changes, row-locked; rows another flusher holds are skipped rather than waited for
+    public List<QueuedDelta> lockQueued(int limit) {
+        return jdbcTemplate.query("SELECT id, car_id, start_date, end_date, delta FROM car_inventory_queue " +
+                "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED", QUEUED_DELTA_ROW, limit);
+    }
+
+    public void deleteQueued(List<Long> ids) {
+        namedJdbcTemplate.update("DELETE FROM car_inventory_queue WHERE id IN (:ids)", Map.of("ids", ids));
+    }
+
+    public List<QueuedDelta> findQueued(Long carId, LocalDate from) {
+        return jdbcTemplate.query("SELECT id, car_id, start_date, end_date, delta FROM car_inventory_queue " +
+                "WHERE car_id = ? AND end_date >= ?", QUEUED_DELTA_ROW, carId, Date.valueOf(from));
+    }
+
+    // Adds each delta to its day row, creating the row when needed; counts never go below zero
+    public void applyDeltas(Map<SlotKey, Integer> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((slot, delta) -> {
+            if (delta != 0) {
+                rows.add(new Object[]{slot.carId(), Date.valueOf(slot.slotDate()), delta, delta});
+            }
+        });
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, rows);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.krishnaproject.carrentalservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads for the inventory reconciliation: the ledger and the active bookings, a chunk of cars at a time
+@Repository
+public class InventoryReconciliationJdbcRepository {
+
+    public interface CarHoldsConsumer {
+        // expected: units held per day by PENDING/CONFIRMED bookings; actual: the ledger's reserved per day
+        void accept(long carId, int capacity, Map<LocalDate, Integer> expected, Map<LocalDate, Integer> actual);
+    }
+
+    // Each branch walks its car_id index for at most one chunk; the union only merges the two
+    private static final String NEXT_CARS_SQL =
+            "SELECT car_id FROM (" +
+            "(SELECT DISTINCT car_id FROM car_daily_inventory " +
+            "WHERE car_id > :afterId AND slot_date >= :from AND reserved > 0 ORDER BY car_id LIMIT :limit) " +
+            "UNION " +
+            "(SELECT DISTINCT car_id FROM bookings " +
+            "WHERE car_id > :afterId AND status IN ('PENDING', 'CONFIRMED') AND end_date >= :from ORDER BY car_id LIMIT :limit)" +
+            ") cars ORDER BY car_id LIMIT :limit";
+
+    private static final String LEDGER_SQL =
+            "SELECT car_id, slot_date, reserved FROM car_daily_inventory " +
+            "WHERE car_id IN (:carIds) AND slot_date >= :from AND reserved > 0";
+
+    private static final String HOLDS_SQL =
+            "SELECT b.car_id, b.start_date, b.end_date, c.count FROM bookings b JOIN cars c ON c.id = b.car_id " +
+            "WHERE b.car_id IN (:carIds) AND b.status IN ('PENDING', 'CONFIRMED') AND b.end_date >= :from";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // Next cars after afterId, in id order, that have ledger days or active bookings from the given date on
+    public List<Long> nextCarIds(LocalDate from, long afterId, int limit) {
+        return namedJdbcTemplate.queryForList(NEXT_CARS_SQL, new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("from", Date.valueOf(from))
+                .addValue("limit", limit), Long.class);
+    }
+
+    // Compares the given cars with two short queries, so no connection is held between chunks.
+    // Returns the rows read.
+    public long compareCarHolds(List<Long> carIds, LocalDate from, CarHoldsConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("carIds", carIds)
+                .addValue("from", Date.valueOf(from));
+        Map<Long, Map<LocalDate, Integer>> actualByCar = new HashMap<>();
+        Map<Long, Map<LocalDate, Integer>> expectedByCar = new HashMap<>();
+        Map<Long, Integer> capacityByCar = new HashMap<>();
+        long[] rows = new long[1];
+
+        namedJdbcTemplate.query(LEDGER_SQL, params, rs -> {
+            actualByCar.computeIfAbsent(rs.getLong(1), id -> new HashMap<>())
+                    .put(rs.getDate(2).toLocalDate(), rs.getInt(3));
+            rows[0]++;
+        });
+        namedJdbcTemplate.query(HOLDS_SQL, params, rs -> {
+            long carId = rs.getLong(1);
+            LocalDate start = rs.getDate(2).toLocalDate();
+            LocalDate end = rs.getDate(3).toLocalDate();
+            capacityByCar.put(carId, rs.getInt(4));
+            Map<LocalDate, Integer> expected = expectedByCar.computeIfAbsent(carId, id -> new HashMap<>());
+            for (LocalDate day = start.isBefore(from) ? from : start; !day.isAfter(end); day = day.plusDays(1)) {
+                expected.merge(day, 1, Integer::sum);
+            }
+            rows[0]++;
+        });
+
+        for (Long carId : carIds) {
+            consumer.accept(carId, capacityByCar.getOrDefault(carId, 0),
+                    expectedByCar.getOrDefault(carId, Map.of()), actualByCar.getOrDefault(carId, Map.of()));
+        }
+        return rows[0];
+    }
+
+    public Map<LocalDate, Integer> expectedHolds(Long carId, LocalDate from) {
+        Map<LocalDate, Integer> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT start_date, end_date FROM bookings " +
+                        "WHERE car_id = ? AND status IN ('PENDING', 'CONFIRMED') AND end_date >= ?",
+                rs -> {
+                    LocalDate start = rs.getDate(1).toLocalDate();
+                    LocalDate end = rs.getDate(2).toLocalDate();
+                    for (LocalDate day = start.isBefore(from) ? from : start; !day.isAfter(end); day = day.plusDays(1)) {
+                        expected.merge(day, 1, Integer::sum);
+                    }
+                }, carId, Date.valueOf(from));
+        return expected;
+    }
+}
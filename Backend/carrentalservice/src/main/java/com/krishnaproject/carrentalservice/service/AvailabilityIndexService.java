@@ -0,0 +1,290 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+import com.krishnaproject.carrentalservice.dto.CatalogChangeEvent;
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository.CarCapacity;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository.CarsSnapshot;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository.EventWatermark;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository.ReservedSnapshot;
+import com.krishnaproject.carrentalservice.util.AvailabilityIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps an AvailabilityIndex of the next horizon-days days for answering city/date-range availability from
+// memory. Built from the ledger at startup and again every night (which also moves the horizon forward);
+// in between, booking events add or remove one unit per held day and admin writes re-read the car.
+// A rebuild reads the ledger together with an outbox watermark; events delivered after the swap that the
+// snapshot already contains are skipped, so neither the cars' days nor the city counters count them twice.
+// Re-reading cars works the same way on a snapshot of just those cars (ledger, queued changes and their
+// events): their own watermark replaces the index's for them, and events delivered while the snapshot was
+// being read are replayed on top of it unless it contains them.
+// The index only answers browse queries; a booking is still checked against the ledger by the strategy.
+@Slf4j
+@Service
+public class AvailabilityIndexService {
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Cars and cities that changed while a rebuild was reading its snapshot; re-read once the new index is in place
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final Set<Long> citiesTouchedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private AvailabilityJdbcRepository availabilityRepository;
+
+    @Value("${availability.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${availability.index.horizon-days:365}")
+    private int horizonDays;
+
+    // Cars are re-read at most this many per snapshot
+    private static final int REFRESH_CHUNK = 1000;
+
+    // The index and the events its snapshot contains, swapped together. Cars re-read since have their own
+    private record Built(AvailabilityIndex index, EventWatermark watermark, Map<Long, EventWatermark> carWatermarks) {
+        boolean contains(BookingEvent event) {
+            return carWatermarks.getOrDefault(event.getCarId(), watermark).contains(event.getEventId());
+        }
+    }
+
+    private record QueuedChange(long carId, LocalDate startDate, LocalDate endDate, int delta) {}
+
+    // Booking events delivered for cars while a re-read of them is in progress, one list per re-read. Guards
+    // every change to the index made for an event or a re-read, and the swap of built
+    private final Map<Long, List<List<BookingEvent>>> refreshing = new HashMap<>();
+
+    // Null until the first build finishes; queries fall back to the database meanwhile
+    private volatile Built built;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialBuild() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${availability.index.rebuild-cron:0 1 0 * * *}")
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long startedMs = System.currentTimeMillis();
+            LocalDate first = LocalDate.now();
+            LocalDate last = first.plusDays(horizonDays - 1);
+
+            List<CarCapacity> cars = availabilityRepository.findAllCars();
+            AvailabilityIndex next = new AvailabilityIndex(first.toEpochDay(), horizonDays, cars.size());
+            for (CarCapacity car : cars) {
+                next.putCar(car.carId(), car.cityId(), car.capacity());
+            }
+            ReservedSnapshot snapshot = availabilityRepository.streamReserved(first, last,
+                    (carId, day, reserved) -> next.setReserved(carId, day.toEpochDay(), reserved),
+                    (carId, startDate, endDate, delta) ->
+                            next.addReserved(carId, startDate.toEpochDay(), endDate.toEpochDay(), delta));
+            synchronized (refreshing) {
+                built = new Built(next, snapshot.watermark(), new ConcurrentHashMap<>());
+            }
+
+            refreshTouched();
+            log.info("Availability index built: {} cars, {} ledger rows, {} days from {}, {} MB, {} ms",
+                    next.size(), snapshot.rows(), horizonDays, first, next.memoryBytes() / (1024 * 1024),
+                    System.currentTimeMillis() - startedMs);
+        } catch (RuntimeException e) {
+            log.error("Availability index build failed; keeping the previous one", e);
+        } finally {
+            rebuilding.set(false);
+            // Catches cars touched between the last drain and the flag going down
+            refreshTouched();
+        }
+    }
+
+    // Null when the index cannot answer (not built yet, or the range leaves the horizon)
+    public long[] availableCarIds(Long cityId, LocalDate startDate, LocalDate endDate) {
+        AvailabilityIndex current = currentIndex();
+        if (current == null || !current.covers(startDate.toEpochDay(), endDate.toEpochDay())) {
+            return null;
+        }
+        return current.availableCars(cityId, startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    // Null when the index cannot answer for the day
+    public AvailabilityIndex.CityAvailability cityAvailability(Long cityId, LocalDate day) {
+        AvailabilityIndex current = currentIndex();
+        if (current == null || !current.covers(day.toEpochDay(), day.toEpochDay())) {
+            return null;
+        }
+        return current.cityAvailability(cityId, day.toEpochDay());
+    }
+
+    // City of the car from memory; null when the index is not built or does not hold the car
+    public Long cityOf(long carId) {
+        AvailabilityIndex current = currentIndex();
+        return current != null ? current.cityOf(carId) : null;
+    }
+
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        if (delta(event) == 0) {
+            return;
+        }
+
+        if (rebuilding.get()) {
+            touchedDuringRebuild.add(event.getCarId());
+        }
+        synchronized (refreshing) {
+            List<List<BookingEvent>> delivered = refreshing.get(event.getCarId());
+            if (delivered != null) {
+                delivered.forEach(events -> events.add(event));
+            }
+            Built current = built;
+            if (current != null && !current.contains(event)) {
+                apply(current.index(), event);
+            }
+        }
+    }
+
+    // PENDING took one unit per day, CANCELLED and EXPIRED gave it back; CONFIRMED and COMPLETED change nothing
+    private static int delta(BookingEvent event) {
+        if (event.getStatus() == BookingStatus.PENDING) {
+            return 1;
+        }
+        if (event.getStatus() == BookingStatus.CANCELLED || event.getStatus() == BookingStatus.EXPIRED) {
+            return -1;
+        }
+        return 0;
+    }
+
+    private static void apply(AvailabilityIndex index, BookingEvent event) {
+        index.addReserved(event.getCarId(), event.getStartDate().toEpochDay(), event.getEndDate().toEpochDay(),
+                delta(event));
+    }
+
+    // CAR: fleet size or city may have changed, or the car is gone. CITY: cars were added to the city in bulk
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.getType() == CatalogEntityType.CAR) {
+            if (rebuilding.get()) {
+                touchedDuringRebuild.add(event.getId());
+            }
+            refreshCar(event.getId());
+        } else {
+            if (rebuilding.get()) {
+                citiesTouchedDuringRebuild.add(event.getId());
+            }
+            refreshCity(event.getId());
+        }
+    }
+
+    private AvailabilityIndex currentIndex() {
+        Built current = built;
+        return current != null ? current.index() : null;
+    }
+
+    private void refreshTouched() {
+        List<Long> carIds = new ArrayList<>(touchedDuringRebuild);
+        touchedDuringRebuild.removeAll(carIds);
+        carIds.forEach(this::refreshCar);
+
+        List<Long> cityIds = new ArrayList<>(citiesTouchedDuringRebuild);
+        citiesTouchedDuringRebuild.removeAll(cityIds);
+        cityIds.forEach(this::refreshCity);
+    }
+
+    private void refreshCity(Long cityId) {
+        if (built == null) {
+            return;
+        }
+        // A car that joins the city after this query is picked up by its own CAR change
+        List<Long> carIds = availabilityRepository.findCarsInCity(cityId).stream().map(CarCapacity::carId).toList();
+        for (int from = 0; from < carIds.size(); from += REFRESH_CHUNK) {
+            refreshCars(carIds.subList(from, Math.min(from + REFRESH_CHUNK, carIds.size())));
+        }
+    }
+
+    private void refreshCar(Long carId) {
+        refreshCars(List.of(carId));
+    }
+
+    // Replaces the cars' rows with a snapshot of them. Events delivered from the moment the cars are marked are
+    // collected; the ones delivered before were committed before the snapshot, so it already contains them
+    private void refreshCars(List<Long> carIds) {
+        Built startedOn = built;
+        if (startedOn == null) {
+            return;
+        }
+
+        List<BookingEvent> delivered = new ArrayList<>();
+        synchronized (refreshing) {
+            carIds.forEach(carId -> refreshing.computeIfAbsent(carId, id -> new ArrayList<>()).add(delivered));
+        }
+        try {
+            AvailabilityIndex index = startedOn.index();
+            LocalDate first = LocalDate.ofEpochDay(index.firstDay());
+            Map<Long, int[]> reservedByCar = new HashMap<>();
+            List<QueuedChange> queued = new ArrayList<>();
+            CarsSnapshot snapshot = availabilityRepository.carsSnapshot(carIds, first, first.plusDays(index.days() - 1),
+                    (carId, day, units) -> reservedByCar.computeIfAbsent(carId, id -> new int[index.days()])
+                            [(int) (day.toEpochDay() - index.firstDay())] = units,
+                    (carId, startDate, endDate, delta) -> queued.add(new QueuedChange(carId, startDate, endDate, delta)));
+
+            synchronized (refreshing) {
+                if (built != startedOn) {
+                    // A rebuild swapped in a newer index, which read these cars itself
+                    return;
+                }
+                Set<Long> found = new HashSet<>();
+                for (CarCapacity car : snapshot.cars()) {
+                    found.add(car.carId());
+                    index.replaceCar(car.carId(), car.cityId(), car.capacity(),
+                            reservedByCar.getOrDefault(car.carId(), new int[0]));
+                    startedOn.carWatermarks().put(car.carId(), snapshot.watermark());
+                }
+                for (Long carId : carIds) {
+                    if (!found.contains(carId)) {
+                        index.removeCar(carId);
+                        startedOn.carWatermarks().remove(carId);
+                    }
+                }
+                for (QueuedChange change : queued) {
+                    index.addReserved(change.carId(), change.startDate().toEpochDay(), change.endDate().toEpochDay(),
+                            change.delta());
+                }
+                for (BookingEvent event : delivered) {
+                    if (!snapshot.watermark().contains(event.getEventId())) {
+                        apply(index, event);
+                    }
+                }
+            }
+        } finally {
+            synchronized (refreshing) {
+                for (Long carId : carIds) {
+                    List<List<BookingEvent>> lists = refreshing.get(carId);
+                    // By identity: two re-reads' lists are equal while both are empty
+                    lists.removeIf(events -> events == delivered);
+                    if (lists.isEmpty()) {
+                        refreshing.remove(carId);
+                    }
+                }
+            }
+        }
+    }
+}
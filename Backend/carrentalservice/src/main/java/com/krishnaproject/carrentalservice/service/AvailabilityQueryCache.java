@@ -0,0 +1,185 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+import com.krishnaproject.carrentalservice.dto.CatalogChangeEvent;
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository.CarCapacity;
+import com.krishnaproject.carrentalservice.util.TtlLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+// Memoized results of the ledger availability query (city, start, end) -> available car ids, for ranges the
+// in-memory AvailabilityIndex cannot answer (beyond its horizon, or while it is disabled or building).
+// Invalidation is targeted: a booking hold drops only the cached ranges that overlap it and list the car; a
+// release drops the overlapping ranges of the car's city; an admin car edit drops the ranges that list the car
+// and every range of its city; a bulk import drops every range of the cities it added to. Booking events run on
+// the event stream's reader thread, so they take the car's city from the AvailabilityIndex rather than the
+// database; while the index cannot tell, a release drops the overlapping ranges of every city.
+// Metrics (tag cache=availability-ranges): cache.gets{result=hit|miss},
+// cache.evictions, cache.size, availability.range_cache.hit_ratio, availability.range_cache.invalidations
+// and availability.range_cache.served_age (how old a served result was, in ms).
+@Service
+public class AvailabilityQueryCache {
+
+    private static final String CACHE_NAME = "availability-ranges";
+
+    private record RangeKey(long cityId, LocalDate startDate, LocalDate endDate) {
+        boolean overlaps(LocalDate start, LocalDate end) {
+            return !startDate.isAfter(end) && !start.isAfter(endDate);
+        }
+    }
+
+    // carIds sorted, so membership is a binary search
+    private record Result(long[] carIds, long loadedAtMs) {
+        boolean lists(long carId) {
+            return Arrays.binarySearch(carIds, carId) >= 0;
+        }
+    }
+
+    // A load that raced with an invalidation of its city is not cached. Booking events bump their car's city,
+    // or the global generation when the city is unknown; car edits bump the global generation, because the car
+    // may have left its old city.
+    private final Map<Long, AtomicLong> cityGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    @Autowired
+    private AvailabilityJdbcRepository availabilityRepository;
+
+    @Autowired
+    private AvailabilityIndexService availabilityIndexService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${availability.range-cache.max-entries:2000}")
+    private int maxEntries;
+
+    @Value("${availability.range-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private TtlLruCache<RangeKey, Result> cache;
+    private Counter invalidations;
+    private DistributionSummary servedAge;
+
+    @PostConstruct
+    void init() {
+        cache = new TtlLruCache<>(maxEntries, ttlSeconds * 1000);
+
+        FunctionCounter.builder("cache.gets", cache, TtlLruCache::hits)
+                .tags("cache", CACHE_NAME, "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, TtlLruCache::misses)
+                .tags("cache", CACHE_NAME, "result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, TtlLruCache::evictions)
+                .tags("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("cache.size", cache, TtlLruCache::size)
+                .tags("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("availability.range_cache.hit_ratio", cache, AvailabilityQueryCache::hitRatio)
+                .register(meterRegistry);
+        invalidations = Counter.builder("availability.range_cache.invalidations")
+                .description("Cached ranges dropped by booking events and car edits")
+                .register(meterRegistry);
+        servedAge = DistributionSummary.builder("availability.range_cache.served_age")
+                .description("Age of cached availability results when served")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    // Available car ids of the city for the range, loading them with loader on a miss
+    public long[] availableCarIds(Long cityId, LocalDate startDate, LocalDate endDate, Supplier<List<Long>> loader) {
+        RangeKey key = new RangeKey(cityId, startDate, endDate);
+        Result cached = cache.get(key);
+        if (cached != null) {
+            servedAge.record(System.currentTimeMillis() - cached.loadedAtMs());
+            return cached.carIds();
+        }
+
+        long cityGeneration = cityGeneration(cityId).get();
+        long global = globalGeneration.get();
+        long loadedAtMs = System.currentTimeMillis();
+        long[] carIds = loader.get().stream().mapToLong(Long::longValue).sorted().toArray();
+        if (cityGeneration(cityId).get() == cityGeneration && globalGeneration.get() == global) {
+            cache.put(key, new Result(carIds, loadedAtMs));
+        }
+        return carIds;
+    }
+
+    // PENDING can only take the car out of overlapping results; CANCELLED and EXPIRED can put it back in
+    // any overlapping result of its city. CONFIRMED and COMPLETED hold the same days as before.
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        LocalDate start = event.getStartDate();
+        LocalDate end = event.getEndDate();
+        long carId = event.getCarId();
+
+        boolean hold = event.getStatus() == BookingStatus.PENDING;
+        if (!hold && event.getStatus() != BookingStatus.CANCELLED && event.getStatus() != BookingStatus.EXPIRED) {
+            return;
+        }
+
+        Long cityId = availabilityIndexService.cityOf(carId);
+        if (cityId != null) {
+            cityGeneration(cityId).incrementAndGet();
+        } else {
+            globalGeneration.incrementAndGet();
+        }
+
+        if (hold) {
+            invalidate((key, result) -> key.overlaps(start, end) && result.lists(carId));
+        } else {
+            invalidate((key, result) -> (cityId == null || key.cityId() == cityId) && key.overlaps(start, end));
+        }
+    }
+
+    // CAR: fleet size, price or city may have changed, or the car is gone. CITY: cars were added in bulk
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.getType() == CatalogEntityType.CITY) {
+            long cityId = event.getId();
+            cityGeneration(cityId).incrementAndGet();
+            invalidate((key, result) -> key.cityId() == cityId);
+            return;
+        }
+        long carId = event.getId();
+        Long cityId = cityOf(carId);
+        globalGeneration.incrementAndGet();
+        invalidate((key, result) -> (cityId != null && key.cityId() == cityId) || result.lists(carId));
+    }
+
+    private void invalidate(BiPredicate<RangeKey, Result> affected) {
+        invalidations.increment(cache.removeEntriesIf(affected));
+    }
+
+    private Long cityOf(long carId) {
+        List<CarCapacity> car = availabilityRepository.findCar(carId);
+        return car.isEmpty() ? null : car.get(0).cityId();
+    }
+
+    private AtomicLong cityGeneration(Long cityId) {
+        return cityGenerations.computeIfAbsent(cityId, id -> new AtomicLong());
+    }
+
+    private static double hitRatio(TtlLruCache<?, ?> cache) {
+        long hits = cache.hits();
+        long total = hits + cache.misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,130 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import com.krishnaproject.carrentalservice.repository.BookingArchiveJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+// Keeps the bookings table down to the working set: bookings that ended (COMPLETED, EXPIRED, CANCELLED) and
+// have not changed for booking.archive.age-days move to bookings_archive, which is range-partitioned by
+// created_at month so old months can later be dropped or moved wholesale. Each chunk is copied and deleted
+// in its own transaction, so a failed run leaves every booking in exactly one of the two tables.
+// One instance archives at a time.
+@Slf4j
+@Service
+public class BookingArchiveService {
+
+    private static final String ARCHIVE_LOCK = "booking:archive";
+
+    private static final List<BookingStatus> ARCHIVABLE = List.of(
+            BookingStatus.COMPLETED, BookingStatus.EXPIRED, BookingStatus.CANCELLED);
+
+    @Autowired
+    private BookingArchiveJdbcRepository archiveRepository;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.archive.age-days:90}")
+    private int ageDays;
+
+    @Value("${booking.archive.batch-size:1000}")
+    private int batchSize;
+
+    private TransactionTemplate moveTransaction;
+
+    @PostConstruct
+    void init() {
+        moveTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${booking.archive.cron:0 30 4 * * *}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+
+        RLock lock = redissonClient.getLock(ARCHIVE_LOCK);
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(ageDays);
+            ensurePartitions(cutoff);
+
+            long started = System.currentTimeMillis();
+            int moved = 0;
+            for (BookingStatus status : ARCHIVABLE) {
+                moved += archive(status, cutoff);
+            }
+            if (moved > 0) {
+                log.info("Archived {} bookings last updated before {} in {} ms",
+                        moved, cutoff, System.currentTimeMillis() - started);
+            }
+        } catch (RuntimeException e) {
+            log.error("Booking archive run failed, retrying on next run", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private int archive(BookingStatus status, LocalDateTime cutoff) {
+        int moved = 0;
+        Integer chunk;
+        do {
+            chunk = moveTransaction.execute(tx -> {
+                List<Long> ids = archiveRepository.lockArchivable(status, cutoff, batchSize);
+                return ids.isEmpty() ? 0 : archiveRepository.moveToArchive(ids, LocalDateTime.now());
+            });
+            moved += chunk;
+        } while (chunk == batchSize);
+        return moved;
+    }
+
+    // Gives every month up to the cutoff's its own partition before rows of that month arrive. A booking is
+    // created before it is last updated, so nothing archived in this run is newer than the cutoff's month;
+    // bookings older than the first monthly partition go to p_min.
+    // Runs outside any transaction: MySQL commits DDL implicitly.
+    private void ensurePartitions(LocalDateTime cutoff) {
+        List<YearMonth> existing = archiveRepository.monthPartitions();
+        YearMonth next;
+        if (!existing.isEmpty()) {
+            next = existing.get(existing.size() - 1).plusMonths(1);
+        } else {
+            List<String> statuses = ARCHIVABLE.stream().map(Enum::name).toList();
+            Optional<LocalDateTime> oldest = archiveRepository.oldestArchivable(statuses, cutoff);
+            if (oldest.isEmpty()) {
+                return;
+            }
+            next = YearMonth.from(oldest.get());
+        }
+
+        YearMonth last = YearMonth.from(cutoff);
+        for (YearMonth month = next; !month.isAfter(last); month = month.plusMonths(1)) {
+            archiveRepository.addMonthPartition(month, existing.isEmpty() && month.equals(next));
+            log.info("Added bookings_archive partition for {}", month);
+        }
+    }
+}
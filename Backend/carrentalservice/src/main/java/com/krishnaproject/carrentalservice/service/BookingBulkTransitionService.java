@@ -0,0 +1,56 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import com.krishnaproject.carrentalservice.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One keyset chunk per transaction: a bulk status update plus one merged inventory release,
+// so row locks are held for one chunk instead of the whole job
+@Service
+public class BookingBulkTransitionService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private InventoryStrategy inventoryStrategy;
+
+    @Autowired
+    private BookingOutboxService outboxService;
+
+    // Returns the ids that were expired; empty when there is nothing left after afterId
+    @Transactional
+    public List<Long> expireChunk(Long afterId, LocalDateTime now, int chunkSize) {
+        List<Booking> chunk = bookingRepository.findExpiredPendingBookings(now, afterId, PageRequest.of(0, chunkSize));
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = chunk.stream().map(Booking::getId).toList();
+        bookingRepository.transitionAll(ids, BookingStatus.PENDING, BookingStatus.EXPIRED, now);
+        outboxService.recordAll(ids, BookingStatus.EXPIRED);
+        inventoryStrategy.releaseAll(chunk);
+        return ids;
+    }
+
+    // Completed rentals only held past days, so there is no inventory to give back
+    @Transactional
+    public List<Long> completeChunk(Long afterId, LocalDate today, int chunkSize) {
+        List<Long> ids = bookingRepository.findCompletedBookings(today, afterId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        bookingRepository.transitionAll(ids, BookingStatus.CONFIRMED, BookingStatus.COMPLETED, LocalDateTime.now());
+        outboxService.recordAll(ids, BookingStatus.COMPLETED);
+        return ids;
+    }
+}
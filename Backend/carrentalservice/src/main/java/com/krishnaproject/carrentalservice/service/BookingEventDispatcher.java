@@ -0,0 +1,37 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+import com.krishnaproject.carrentalservice.util.TtlLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+// Hands events read from the stream to @EventListener(BookingEvent) beans, dropping redeliveries.
+// Listeners run on the stream reader's thread and should stay short.
+@Slf4j
+@Service
+public class BookingEventDispatcher {
+
+    private final TtlLruCache<Long, Boolean> seenEventIds = new TtlLruCache<>(100_000, TimeUnit.HOURS.toMillis(1));
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    public void dispatch(BookingEvent event) {
+        synchronized (seenEventIds) {
+            if (seenEventIds.get(event.getEventId()) != null) {
+                return;
+            }
+            seenEventIds.put(event.getEventId(), Boolean.TRUE);
+        }
+
+        try {
+            applicationEventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("Booking event listener failed for event {}", event.getEventId(), e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+
+import java.util.List;
+
+// Ordered stream of booking events, split into partitions by car so one car's events stay in order.
+// Selected with booking.events.stream. Events reach in-process listeners through BookingEventDispatcher.
+public interface BookingEventStream {
+
+    // Appends the events in the given order; throws when they could not be appended, so the relay retries
+    void publish(List<BookingEvent> events);
+
+    static int partitionOf(Long carId, int partitions) {
+        return (int) Math.floorMod(carId, (long) partitions);
+    }
+}
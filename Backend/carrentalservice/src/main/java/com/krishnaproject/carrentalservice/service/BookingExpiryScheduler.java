@@ -0,0 +1,79 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingDeadlineDto;
+import com.krishnaproject.carrentalservice.repository.BookingRepository;
+import com.krishnaproject.carrentalservice.util.HierarchicalTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+// Expires each PENDING booking on the first tick after its payment deadline instead of polling the table
+@Slf4j
+@Service
+public class BookingExpiryScheduler {
+
+    private static final long TICK_MS = 500;
+    private static final int WHEEL_SIZE = 64;
+
+    private final HierarchicalTimingWheel<Long> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Lazy
+    @Autowired
+    private BookingService bookingService;
+
+    // Bookings only become visible to the expiry path once their transaction commits
+    public void scheduleAfterCommit(Long bookingId, LocalDateTime paymentDeadline) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(bookingId, paymentDeadline);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedule(bookingId, paymentDeadline);
+            }
+        });
+    }
+
+    public void schedule(Long bookingId, LocalDateTime paymentDeadline) {
+        wheel.schedule(bookingId, paymentDeadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1);
+    }
+
+    // Holds that were open when the service stopped are put back on the wheel; overdue ones fire on the first tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<BookingDeadlineDto> pending = bookingRepository.findPendingDeadlines();
+        for (BookingDeadlineDto booking : pending) {
+            schedule(booking.getId(), booking.getPaymentDeadline());
+        }
+        log.info("Expiry wheel rebuilt with {} pending bookings", pending.size());
+    }
+
+    @Scheduled(fixedRate = TICK_MS)
+    public void tick() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+
+        for (Long bookingId : expired) {
+            try {
+                bookingService.expireBooking(bookingId);
+            } catch (RuntimeException e) {
+                log.error("Failed to expire booking {}", bookingId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingRequestDto;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.InventoryUnavailableException;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Load comparison of the inventory strategies through the real BookingService path.
+// Run against a scratch database, once per strategy, e.g.
+//   --spring.profiles.active=benchmark --booking.inventory.strategy=pessimistic
+//   --spring.profiles.active=benchmark --booking.inventory.strategy=optimistic
+// Each contention level in benchmark.car-counts spreads the requests over that many cars: 1 is a single hot
+// car, 10000 is a fleet of cold cars. Every request books benchmark.days days starting within the next
+// benchmark.days-ahead days. A sold-out answer counts as a served request.
+// The optimistic strategy keeps every row it raised locked until the booking ends (see its class comment), so
+// at low car counts both strategies measure row locking; optimistic only differs where conflicts are rare.
+@Slf4j
+@Component
+@Profile("benchmark")
+public class BookingLoadBenchmark implements CommandLineRunner {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Value("${booking.inventory.strategy:pessimistic}")
+    private String strategy;
+
+    @Value("${benchmark.threads:64}")
+    private int threads;
+
+    @Value("${benchmark.requests:20000}")
+    private int requests;
+
+    @Value("${benchmark.car-counts:1,10000}")
+    private List<Integer> carCounts;
+
+    @Value("${benchmark.days:3}")
+    private int days;
+
+    @Value("${benchmark.days-ahead:30}")
+    private int daysAhead;
+
+    @Value("${benchmark.user-id:0}")
+    private Long userId;
+
+    @Override
+    public void run(String... args) throws InterruptedException {
+        for (int carCount : carCounts) {
+            runLevel(carCount);
+        }
+    }
+
+    private void runLevel(int carCount) throws InterruptedException {
+        List<Long> carIds = carRepository.findAll(PageRequest.of(0, carCount, Sort.by("id")))
+                .map(Car::getId)
+                .getContent();
+        if (carIds.isEmpty()) {
+            log.warn("Benchmark skipped: no cars in the database");
+            return;
+        }
+        if (carIds.size() < carCount) {
+            log.warn("Only {} cars in the database for the {} car level", carIds.size(), carCount);
+        }
+
+        long[] latenciesNs = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long startedNs = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    BookingRequestDto request = randomRequest(carIds);
+                    long beganNs = System.nanoTime();
+                    try {
+                        bookingService.createBooking(request);
+                        booked.incrementAndGet();
+                    } catch (InventoryUnavailableException e) {
+                        soldOut.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                    latenciesNs[i] = System.nanoTime() - beganNs;
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        long elapsedNs = System.nanoTime() - startedNs;
+
+        Arrays.sort(latenciesNs);
+        log.info("Benchmark strategy={} cars={} threads={} requests={}: {} req/s, p50={} ms, p99={} ms, max={} ms, " +
+                        "booked={}, soldOut={}, failed={}",
+                strategy, carIds.size(), threads, requests,
+                String.format("%.0f", requests / (elapsedNs / 1e9)),
+                millis(percentile(latenciesNs, 0.50)), millis(percentile(latenciesNs, 0.99)),
+                millis(latenciesNs[latenciesNs.length - 1]),
+                booked.get(), soldOut.get(), failed.get());
+    }
+
+    private BookingRequestDto randomRequest(List<Long> carIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate start = LocalDate.now().plusDays(1 + random.nextInt(daysAhead));
+
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(userId);
+        request.setCarId(carIds.get(random.nextInt(carIds.size())));
+        request.setStartDate(start);
+        request.setEndDate(start.plusDays(days - 1));
+        return request;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
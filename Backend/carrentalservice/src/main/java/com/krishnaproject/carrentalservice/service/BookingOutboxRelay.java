@@ -0,0 +1,104 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+import com.krishnaproject.carrentalservice.entity.BookingOutboxEvent;
+import com.krishnaproject.carrentalservice.repository.BookingOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Moves outbox rows to the event stream in id order, batch by batch. A row is deleted only after its batch
+// was published, so a crash in between publishes it again (at-least-once; consumers dedupe on eventId).
+// One instance relays at a time, which keeps each partition in outbox order. Relayed ids move to
+// relayed_booking_events in the same transaction as the delete and stay there for relayed-retention-minutes,
+// so a snapshot of both tables lists every event committed before it (see AvailabilityJdbcRepository).
+@Slf4j
+@Service
+public class BookingOutboxRelay {
+
+    private static final String RELAY_LOCK = "booking:outbox:relay";
+
+    @Autowired
+    private BookingOutboxRepository outboxRepository;
+
+    @Autowired
+    private BookingEventStream eventStream;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.events.relay-batch-size:500}")
+    private int batchSize;
+
+    // Longer than the event stream's consumers may fall behind: an event delivered later than this after it
+    // was relayed is no longer recognised as contained in an availability index snapshot
+    @Value("${booking.events.relayed-retention-minutes:15}")
+    private int relayedRetentionMinutes;
+
+    private TransactionTemplate deleteTransaction;
+
+    @PostConstruct
+    void init() {
+        deleteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.events.relay-interval-ms:100}")
+    public void relay() {
+        RLock lock = redissonClient.getLock(RELAY_LOCK);
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        try {
+            List<BookingOutboxEvent> batch;
+            do {
+                batch = outboxRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    return;
+                }
+
+                eventStream.publish(batch.stream().map(BookingOutboxRelay::toEvent).toList());
+                List<Long> ids = batch.stream().map(BookingOutboxEvent::getId).toList();
+                deleteTransaction.executeWithoutResult(status -> {
+                    outboxRepository.recordRelayed(ids, LocalDateTime.now());
+                    outboxRepository.deleteAllByIdInBatch(ids);
+                });
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Booking outbox relay failed, retrying on next run", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Any instance may prune; deleting the same rows twice is harmless
+    @Scheduled(fixedDelayString = "${booking.events.relayed-prune-ms:60000}")
+    public void pruneRelayed() {
+        try {
+            outboxRepository.pruneRelayed(LocalDateTime.now().minusMinutes(relayedRetentionMinutes));
+        } catch (RuntimeException e) {
+            log.error("Failed to prune relayed booking events, retrying on next run", e);
+        }
+    }
+
+    private static BookingEvent toEvent(BookingOutboxEvent row) {
+        return new BookingEvent(row.getId(), row.getBookingId(), row.getCarId(), row.getUserId(), row.getStatus(),
+                row.getStartDate(), row.getEndDate(), row.getPaymentDeadline(), row.getOccurredAt());
+    }
+}
@@ -0,0 +1,33 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import com.krishnaproject.carrentalservice.repository.BookingOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Records booking transitions for BookingOutboxRelay. MANDATORY: an event must commit or roll back
+// together with the transition it describes.
+@Service
+public class BookingOutboxService {
+
+    @Autowired
+    private BookingOutboxRepository outboxRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long bookingId, BookingStatus status) {
+        recordAll(List.of(bookingId), status);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Long> bookingIds, BookingStatus status) {
+        if (!bookingIds.isEmpty()) {
+            outboxRepository.recordAll(bookingIds, status.name(), LocalDateTime.now());
+        }
+    }
+}
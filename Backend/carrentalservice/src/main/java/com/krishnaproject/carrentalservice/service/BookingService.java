@@ -1,24 +1,38 @@
 package com.krishnaproject.carrentalservice.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.krishnaproject.carrentalservice.config.ReadWriteRoutingDataSource;
 import com.krishnaproject.carrentalservice.dto.*;
 import com.krishnaproject.carrentalservice.entity.*;
 import com.krishnaproject.carrentalservice.enums.BookingStatus;
 import com.krishnaproject.carrentalservice.exception.*;
 import com.krishnaproject.carrentalservice.repository.*;
+import com.krishnaproject.carrentalservice.util.TtlLruCache;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 @Slf4j
 @Service
@@ -28,172 +42,227 @@ public class BookingService {
     private BookingRepository bookingRepository;
 
     @Autowired
-    private CarRepository carRepository;
+    private InventoryStrategy inventoryStrategy;
 
     @Autowired
-    private RedissonClient redissonClient;
+    private InventoryLedgerService inventoryLedgerService;
 
-    @Transactional
-    public BookingResponseDto createBooking(BookingRequestDto request) {
-        String lockKey = "car:lock:" + request.getCarId();
-        RLock lock = redissonClient.getLock(lockKey);
+    @Autowired
+    private BookingExpiryScheduler bookingExpiryScheduler;
 
-        try {
-            // Acquire lock briefly to decrement count
-            boolean isLocked = lock.tryLock(5, 10, TimeUnit.SECONDS);
+    @Autowired
+    private BookingBulkTransitionService bulkTransitionService;
 
-            if (!isLocked) {
-                throw new RuntimeException("Unable to acquire lock. Please try again.");
-            }
+    @Autowired
+    private BookingJdbcRepository bookingJdbcRepository;
 
-            Car car = carRepository.findByIdWithLock(request.getCarId())
-                    .orElseThrow(() -> new CarNotFoundException("Car not found"));
+    @Autowired
+    private BookingOutboxService outboxService;
 
-            if (car.getCount() <= 0) {
-                throw new IllegalStateException("Car is out of stock");
-            }
+    @Autowired
+    private ObjectMapper objectMapper;
 
-            if (request.getStartDate().isBefore(LocalDate.now())) {
-                throw new IllegalArgumentException("Start date cannot be in the past");
-            }
+    @Autowired
+    private BookingArchiveJdbcRepository archiveRepository;
 
-            if (request.getEndDate().isBefore(request.getStartDate())) {
-                throw new IllegalArgumentException("End date must be after start date");
-            }
+    @Value("${booking.jobs.chunk-size:500}")
+    private int chunkSize;
 
-            long days = ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate());
-            if (days == 0) days = 1;
-            double totalPrice = car.getPricePerDay() * days;
+    @Value("${booking.group.max-cars:20}")
+    private int maxGroupSize;
 
-            // Decrement car count
-            car.setCount(car.getCount() - 1);
-            carRepository.save(car);
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
-            Booking booking = new Booking();
-            booking.setCar(car);
-            booking.setUserId(request.getUserId());
-            booking.setStartDate(request.getStartDate());
-            booking.setEndDate(request.getEndDate());
-            booking.setTotalPrice(totalPrice);
-            booking.setStatus(BookingStatus.PENDING);
+    // How far the replica may trail the primary; a booking written more recently is read from the primary
+    @Value("${app.datasource.replica.max-lag-ms:2000}")
+    private long replicaMaxLagMs;
 
-            booking = bookingRepository.save(booking);
+    @Value("${app.datasource.replica.recent-writes:100000}")
+    private int maxRecentWrites;
 
-            log.info("Booking created: {}. Car count reduced to: {}", booking.getId(), car.getCount());
+    // Bookings this instance wrote within the last replicaMaxLagMs
+    private TtlLruCache<Long, Boolean> recentWrites;
+    private TransactionTemplate readOnlyTransaction;
 
-            // Release lock immediately
-            lock.unlock();
+    @PostConstruct
+    void init() {
+        recentWrites = new TtlLruCache<>(maxRecentWrites, replicaMaxLagMs);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
 
-            scheduleBookingTimeout(booking.getId());
+    // READ COMMITTED so the optimistic strategy's re-reads see holds committed during its retries
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BookingResponseDto createBooking(BookingRequestDto request) {
+        validateDates(request.getStartDate(), request.getEndDate());
 
-            return mapToResponse(booking);
+        // Hold one unit on every day of the range
+        Car car = inventoryStrategy.reserve(request.getCarId(), request.getStartDate(), request.getEndDate());
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Booking process interrupted", e);
-        } finally {
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
-            }
-        }
+        Booking booking = newBooking(car, request.getUserId(), request.getStartDate(), request.getEndDate());
+        booking = bookingRepository.save(booking);
+        outboxService.record(booking.getId(), BookingStatus.PENDING);
+
+        log.info("Booking created: {}. Car {} held from {} to {}",
+                booking.getId(), car.getId(), booking.getStartDate(), booking.getEndDate());
+
+        bookingExpiryScheduler.scheduleAfterCommit(booking.getId(), booking.getPaymentDeadline());
+        markWrittenAfterCommit(List.of(booking.getId()));
+
+        return mapToResponse(booking);
     }
 
-    @Transactional
-    public BookingResponseDto confirmPayment(PaymentRequestDto paymentRequest) {
-        Booking booking = bookingRepository.findById(paymentRequest.getBookingId())
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+    // All cars are held or none: one lock round trip for the whole group and one batched insert of the bookings
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<BookingResponseDto> createGroupBooking(GroupBookingRequestDto request) {
+        validateDates(request.getStartDate(), request.getEndDate());
 
-        if (booking.getStatus() != BookingStatus.PENDING) {
-            throw new IllegalStateException("Booking is not in pending state");
+        if (request.getCarIds() == null || request.getCarIds().isEmpty()) {
+            throw new IllegalArgumentException("At least one car must be requested");
         }
 
-        if (LocalDateTime.now().isAfter(booking.getPaymentDeadline())) {
-            // Restore car count if expired
-            restoreCarCountWithLock(booking);
-            booking.setStatus(BookingStatus.EXPIRED);
-            bookingRepository.save(booking);
-            throw new IllegalStateException("Payment deadline expired");
+        if (request.getCarIds().size() > maxGroupSize) {
+            throw new IllegalArgumentException("A group booking can hold at most " + maxGroupSize + " cars");
         }
 
-        boolean paymentSuccess = processFakePayment(paymentRequest);
+        Map<Long, Integer> unitsByCarId = new TreeMap<>();
+        for (Long carId : request.getCarIds()) {
+            unitsByCarId.merge(carId, 1, Integer::sum);
+        }
 
-        if (paymentSuccess) {
-            booking.setStatus(BookingStatus.CONFIRMED);
-            bookingRepository.save(booking);
-            log.info("Payment confirmed for booking: {}", booking.getId());
-        } else {
-            // Payment failed, restore count
-            restoreCarCountWithLock(booking);
-            booking.setStatus(BookingStatus.CANCELLED);
-            bookingRepository.save(booking);
-            throw new RuntimeException("Payment failed");
+        Map<Long, Car> carsById = new HashMap<>();
+        for (Car car : inventoryStrategy.reserveAll(unitsByCarId, request.getStartDate(), request.getEndDate())) {
+            carsById.put(car.getId(), car);
         }
 
-        return mapToResponse(booking);
+        List<Booking> bookings = new ArrayList<>();
+        for (Long carId : request.getCarIds()) {
+            bookings.add(newBooking(carsById.get(carId), request.getUserId(), request.getStartDate(), request.getEndDate()));
+        }
+        bookingJdbcRepository.insertAll(bookings);
+        outboxService.recordAll(bookings.stream().map(Booking::getId).toList(), BookingStatus.PENDING);
+
+        for (Booking booking : bookings) {
+            bookingExpiryScheduler.scheduleAfterCommit(booking.getId(), booking.getPaymentDeadline());
+        }
+        markWrittenAfterCommit(bookings.stream().map(Booking::getId).toList());
+        log.info("Group booking created for user {}: {} cars", request.getUserId(), bookings.size());
+
+        return bookings.stream().map(this::mapToResponse).toList();
     }
 
-    @Scheduled(fixedRate = 60000)
-    @Transactional
-    public void handleExpiredBookings() {
-        List<Booking> expiredBookings = bookingRepository.findExpiredPendingBookings(LocalDateTime.now());
+    private void validateDates(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Start date cannot be in the past");
+        }
 
-        for (Booking booking : expiredBookings) {
-            restoreCarCountWithLock(booking);
-            booking.setStatus(BookingStatus.EXPIRED);
-            bookingRepository.save(booking);
-            log.info("Expired booking handled: {}", booking.getId());
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must be after start date");
         }
     }
 
-    @Scheduled(cron = "0 0 2 * * *")
+    private Booking newBooking(Car car, Long userId, LocalDate startDate, LocalDate endDate) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate);
+        if (days == 0) days = 1;
+        double totalPrice = car.getPricePerDay() * days;
+
+        Booking booking = new Booking();
+        booking.setCar(car);
+        booking.setUserId(userId);
+        booking.setStartDate(startDate);
+        booking.setEndDate(endDate);
+        booking.setTotalPrice(totalPrice);
+        booking.setStatus(BookingStatus.PENDING);
+        return booking;
+    }
+
+    // Returns false when the booking was no longer waiting for payment (e.g. it expired first)
     @Transactional
-    public void markCompletedBookings() {
-        List<Booking> completedBookings = bookingRepository.findCompletedBookings(LocalDateTime.now());
+    public boolean confirmBooking(Long bookingId) {
+        if (bookingRepository.transition(bookingId, BookingStatus.PENDING, BookingStatus.CONFIRMED, LocalDateTime.now()) == 0) {
+            return false;
+        }
+
+        outboxService.record(bookingId, BookingStatus.CONFIRMED);
+        markWrittenAfterCommit(List.of(bookingId));
+        return true;
+    }
+
+    // An archived booking has already ended: it is found, and the transition below leaves it alone
+    @Transactional
+    public void cancelBooking(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .or(() -> archiveRepository.findArchived(bookingId))
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
 
-        for (Booking booking : completedBookings) {
-            booking.setStatus(BookingStatus.COMPLETED);
-            bookingRepository.save(booking);
-            restoreCarCountWithLock(booking);
-            log.info("Completed booking: {}", booking.getId());
+        if (bookingRepository.transition(bookingId, BookingStatus.PENDING, BookingStatus.CANCELLED, LocalDateTime.now()) == 1) {
+            // Payment failed, give the days back
+            outboxService.record(bookingId, BookingStatus.CANCELLED);
+            markWrittenAfterCommit(List.of(bookingId));
+            releaseInventory(booking);
+            log.info("Booking cancelled after failed payment: {}", bookingId);
         }
     }
 
-    @Async
-    protected void scheduleBookingTimeout(Long bookingId) {
-        log.info("Timeout checker scheduled for booking: {}", bookingId);
+    // Called by the expiry wheel when the payment deadline of a booking has passed
+    @Transactional
+    public void expireBooking(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null) {
+            return;
+        }
+
+        // Payment may have landed first; then there is nothing to expire
+        int updated = bookingRepository.transition(bookingId, BookingStatus.PENDING, BookingStatus.EXPIRED, LocalDateTime.now());
+        if (updated == 0) {
+            return;
+        }
+
+        outboxService.record(bookingId, BookingStatus.EXPIRED);
+        markWrittenAfterCommit(List.of(bookingId));
+        releaseInventory(booking);
+        log.info("Expired booking handled: {}", bookingId);
     }
 
-    private void restoreCarCountWithLock(Booking booking) {
-        String carLockKey = "car:lock:" + booking.getCar().getId();
-        RLock carLock = redissonClient.getLock(carLockKey);
+    // Safety net for holds the wheel missed (e.g. a crash between commit and scheduling); the wheel does the real work
+    @Scheduled(fixedDelayString = "${booking.expiry.sweep-interval-ms:900000}")
+    public void handleExpiredBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = 0;
+        int expired = 0;
+
+        List<Long> chunk;
+        while (!(chunk = bulkTransitionService.expireChunk(afterId, now, chunkSize)).isEmpty()) {
+            expired += chunk.size();
+            afterId = chunk.get(chunk.size() - 1);
+        }
 
-        try {
-            if (carLock.tryLock(5, 10, TimeUnit.SECONDS)) {
-                Car car = carRepository.findByIdWithLock(booking.getCar().getId())
-                        .orElseThrow(() -> new RuntimeException("Car not found"));
-                car.setCount(car.getCount() + 1);
-                carRepository.save(car);
-                log.info("Car count restored for car: {}", car.getId());
-            } else {
-                log.error("Failed to acquire lock for restoring car count: {}", booking.getCar().getId());
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Interrupted while restoring car count", e);
-        } finally {
-            if (carLock.isHeldByCurrentThread()) {
-                carLock.unlock();
-            }
+        if (expired > 0) {
+            log.info("Expired bookings handled: {}", expired);
         }
     }
 
-    private boolean processFakePayment(PaymentRequestDto payment) {
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    @Scheduled(cron = "0 0 2 * * *")
+    public void markCompletedBookings() {
+        LocalDate today = LocalDate.now();
+        long afterId = 0;
+        int completed = 0;
+
+        List<Long> chunk;
+        while (!(chunk = bulkTransitionService.completeChunk(afterId, today, chunkSize)).isEmpty()) {
+            completed += chunk.size();
+            afterId = chunk.get(chunk.size() - 1);
         }
-        return Math.random() < 0.95;
+        log.info("Completed bookings: {}", completed);
+
+        // Completed rentals only held days that are now in the past
+        inventoryLedgerService.pruneBefore(today);
+    }
+
+    private void releaseInventory(Booking booking) {
+        inventoryStrategy.release(booking.getCar().getId(), booking.getStartDate(), booking.getEndDate());
+        log.info("Inventory released for car: {}", booking.getCar().getId());
     }
 
     private BookingResponseDto mapToResponse(Booking booking) {
@@ -216,15 +285,61 @@ public class BookingService {
         return response;
     }
 
+    // Read-your-writes on top of the replica: a booking written here within the replica's lag is read from
+    // the primary, and so is one the replica does not have yet (e.g. created through another instance)
     public BookingResponseDto getBookingById(Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
-        return mapToResponse(booking);
+        Optional<BookingResponseDto> booking = recentWrites.get(bookingId) != null
+                ? Optional.empty()
+                : readBooking(bookingId);
+        if (booking.isEmpty()) {
+            booking = ReadWriteRoutingDataSource.onPrimary(() -> readBooking(bookingId));
+        }
+        return booking.orElseThrow(() -> new RuntimeException("Booking not found"));
+    }
+
+    // Falls back to bookings_archive for bookings that have been archived
+    private Optional<BookingResponseDto> readBooking(Long bookingId) {
+        return readOnlyTransaction.execute(status -> bookingRepository.findById(bookingId)
+                .or(() -> archiveRepository.findArchived(bookingId))
+                .map(this::mapToResponse));
     }
 
-    public List<BookingResponseDto> getUserBookings(Long userId) {
-        return bookingRepository.findByUserId(userId).stream()
-                .map(this::mapToResponse)
-                .toList();
+    private void markWrittenAfterCommit(List<Long> bookingIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookingIds.forEach(id -> recentWrites.put(id, Boolean.TRUE));
+            }
+        });
+    }
+
+    // Streams the user's bookings, live and archived, as a JSON array in keyset chunks (car fetched in the same
+    // query), flushing after each chunk: the first bytes leave after one chunk and at most one chunk is held in
+    // memory. Each chunk is read in its own short transaction and written after it ends, so a slow client never
+    // holds a pooled connection. A booking archived between two chunks is still read once: the archiver moves it
+    // in one transaction and keeps its id, so the next chunk finds it in exactly one of the two tables.
+    // Reads the primary: a booking just made (possibly through another instance) must be in the history, and
+    // unlike a single lookup a missing row cannot be told apart from one the replica has not applied yet
+    public void writeUserBookings(Long userId, OutputStream out) throws IOException {
+        // The servlet container owns the response stream; closing the generator must not close it
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            long afterId = 0;
+            List<Booking> chunk;
+            do {
+                long after = afterId;
+                chunk = ReadWriteRoutingDataSource.onPrimary(() -> readOnlyTransaction.execute(status ->
+                        archiveRepository.findUserHistoryChunk(userId, after, chunkSize)));
+                for (Booking booking : chunk) {
+                    generator.writeObject(mapToResponse(booking));
+                }
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+                generator.flush();
+            } while (chunk.size() == chunkSize);
+            generator.writeEndArray();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+import com.krishnaproject.carrentalservice.dto.BookingResponseDto;
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Server-sent events for the checkout page: the booking (with its deadline) once on subscribe, then every
+// status change from the booking event stream. An idle subscription is an open async request, no thread.
+// The stream ends once the booking leaves PENDING, or a little past the payment deadline.
+// Every send runs on one sender thread of its own, in submission order: sends block on slow clients and must
+// hold up neither the booking event reader (which delivers to the other listeners too) nor the @Scheduled pool.
+// Its queue is bounded; when it is full an event's streams are completed instead, and the client reconnects
+// to a fresh snapshot.
+@Slf4j
+@Service
+public class BookingStatusStreamService {
+
+    // Open subscriptions per booking; a booking usually has one (the checkout tab)
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Value("${booking.stream.grace-seconds:30}")
+    private long graceSeconds;
+
+    @Value("${booking.stream.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    @Value("${booking.stream.send-queue:10000}")
+    private int sendQueue;
+
+    // Only times heartbeats and deadlines; the sends themselves go to sender
+    private ScheduledExecutorService streamScheduler;
+    private ThreadPoolExecutor sender;
+
+    @PostConstruct
+    void startScheduler() {
+        sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(sendQueue),
+                daemon("booking-stream-send"));
+        streamScheduler = Executors.newSingleThreadScheduledExecutor(daemon("booking-stream"));
+        streamScheduler.scheduleWithFixedDelay(() -> submit(null, this::heartbeat),
+                heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopScheduler() {
+        streamScheduler.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public SseEmitter subscribe(Long bookingId) {
+        // No fixed timeout: the deadline is only known from the snapshot, which is read after registering
+        SseEmitter emitter = new SseEmitter(0L);
+
+        // Registered before the snapshot is read, so a transition committed in between is still delivered
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(bookingId, id -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> unsubscribe(bookingId, emitter));
+        emitter.onTimeout(() -> unsubscribe(bookingId, emitter));
+        emitter.onError(e -> unsubscribe(bookingId, emitter));
+
+        BookingResponseDto booking;
+        try {
+            booking = bookingService.getBookingById(bookingId);
+        } catch (RuntimeException e) {
+            unsubscribe(bookingId, emitter);
+            throw e;
+        }
+
+        // Queued like the status sends, so a transition delivered meanwhile still follows the snapshot
+        submit(emitter, () -> {
+            if (!send(emitter, SseEmitter.event().name("booking").data(booking))
+                    || booking.getStatus() != BookingStatus.PENDING) {
+                complete(emitter);
+            }
+        });
+
+        if (booking.getStatus() == BookingStatus.PENDING) {
+            // Lives a little past the deadline so the EXPIRED event still arrives
+            long remainingSeconds = booking.getRemainingSeconds() != null ? booking.getRemainingSeconds() : 0;
+            streamScheduler.schedule(() -> submit(emitter, () -> complete(emitter)),
+                    remainingSeconds + graceSeconds, TimeUnit.SECONDS);
+        }
+        return emitter;
+    }
+
+    // Runs on the booking event reader: only queues the sends
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        List<SseEmitter> emitters = subscribers.get(event.getBookingId());
+        if (emitters == null) {
+            return;
+        }
+
+        for (SseEmitter emitter : emitters) {
+            submit(emitter, () -> {
+                send(emitter, SseEmitter.event().id(event.getEventId().toString()).name("status").data(event));
+                if (event.getStatus() != BookingStatus.PENDING) {
+                    complete(emitter);
+                }
+            });
+        }
+    }
+
+    // With the queue full the emitter is completed (a skipped heartbeat, with no emitter, is just dropped)
+    private void submit(SseEmitter emitter, Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (emitter != null) {
+                log.warn("Booking stream send queue is full, closing a stream");
+                complete(emitter);
+            }
+        }
+    }
+
+    // Keeps proxies from closing idle streams and finds clients that went away
+    private void heartbeat() {
+        try {
+            subscribers.values().forEach(emitters ->
+                    emitters.forEach(emitter -> send(emitter, SseEmitter.event().comment("keep-alive"))));
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-delay task
+            log.error("Booking stream heartbeat failed", e);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(List::size).sum();
+    }
+
+    private boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client disconnected or the emitter already completed
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    // The deadline completion may run after the emitter already ended
+    private void complete(SseEmitter emitter) {
+        try {
+            emitter.complete();
+        } catch (IllegalStateException e) {
+            log.debug("Booking stream already completed", e);
+        }
+    }
+
+    private void unsubscribe(Long bookingId, SseEmitter emitter) {
+        subscribers.computeIfPresent(bookingId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
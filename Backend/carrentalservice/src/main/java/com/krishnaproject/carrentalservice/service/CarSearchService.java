@@ -0,0 +1,128 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.CarSearchRequestDto;
+import com.krishnaproject.carrentalservice.dto.CarSearchResultDto;
+import com.krishnaproject.carrentalservice.dto.CarSummaryDto;
+import com.krishnaproject.carrentalservice.dto.CatalogChangeEvent;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import com.krishnaproject.carrentalservice.util.FacetIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+// Faceted search over the catalog, answered from FacetIndex without touching the database.
+// The index is loaded in keyset pages at startup and kept current per car through CatalogChangeEvent,
+// which every instance receives after an admin write commits.
+@Slf4j
+@Service
+public class CarSearchService {
+
+    public static final String CITY = "city";
+    public static final String BRAND = "brand";
+    public static final String FUEL_TYPE = "fuelType";
+    public static final String TRANSMISSION = "transmission";
+    public static final String SEATS = "seats";
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Value("${catalog.search.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    private final FacetIndex<CarSummaryDto> index =
+            new FacetIndex<>(List.of(CITY, BRAND, FUEL_TYPE, TRANSMISSION, SEATS));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        long startedNs = System.nanoTime();
+        int loaded = loadPages(afterId -> carRepository.findCatalogPage(afterId, PageRequest.of(0, loadBatchSize)));
+        log.info("Search index loaded {} cars in {} ms", loaded, (System.nanoTime() - startedNs) / 1_000_000);
+    }
+
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.getType() == CatalogEntityType.CAR) {
+            carRepository.findCatalogRow(event.getId())
+                    .ifPresentOrElse(this::index, () -> index.remove(event.getId()));
+        } else {
+            // A renamed city changes the cityName carried by each of its cars
+            Long cityId = event.getId();
+            loadPages(afterId -> carRepository.findCatalogPageByCity(cityId, afterId, PageRequest.of(0, loadBatchSize)));
+        }
+    }
+
+    public CarSearchResultDto search(CarSearchRequestDto request) {
+        if (request.getSize() < 1 || request.getSize() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (request.getPage() < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+
+        boolean descending;
+        if ("price_asc".equals(request.getSort())) {
+            descending = false;
+        } else if ("price_desc".equals(request.getSort())) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("Sort must be price_asc or price_desc");
+        }
+
+        Map<String, Set<String>> filters = new HashMap<>();
+        addFilter(filters, CITY, request.getCity());
+        addFilter(filters, BRAND, request.getBrand());
+        addFilter(filters, FUEL_TYPE, request.getFuelType());
+        addFilter(filters, TRANSMISSION, request.getTransmission());
+        addFilter(filters, SEATS, request.getSeats());
+
+        FacetIndex.Result<CarSummaryDto> result = index.search(filters, request.getMinPrice(), request.getMaxPrice(),
+                descending, (int) Math.min(Integer.MAX_VALUE, (long) request.getPage() * request.getSize()),
+                request.getSize());
+        return new CarSearchResultDto(result.total(), result.items(), result.facets());
+    }
+
+    private int loadPages(LongFunction<List<CarSummaryDto>> pageAfter) {
+        int loaded = 0;
+        long afterId = 0;
+        List<CarSummaryDto> page;
+        do {
+            page = pageAfter.apply(afterId);
+            page.forEach(this::index);
+            loaded += page.size();
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == loadBatchSize);
+        return loaded;
+    }
+
+    private void index(CarSummaryDto car) {
+        Map<String, String> facets = new HashMap<>();
+        facets.put(CITY, car.getCityId() != null ? car.getCityId().toString() : null);
+        facets.put(BRAND, car.getBrand());
+        facets.put(FUEL_TYPE, car.getFuelType());
+        facets.put(TRANSMISSION, car.getTransmission());
+        facets.put(SEATS, car.getSeatingCapacity() != null ? car.getSeatingCapacity().toString() : null);
+        index.upsert(car.getId(), car, facets, car.getPricePerDay());
+    }
+
+    private static void addFilter(Map<String, Set<String>> filters, String facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, new LinkedHashSet<>(values));
+        }
+    }
+}
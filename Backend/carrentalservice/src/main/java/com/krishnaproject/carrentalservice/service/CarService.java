@@ -1,40 +1,134 @@
 package com.krishnaproject.carrentalservice.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.krishnaproject.carrentalservice.dto.CarDto;
+import com.krishnaproject.carrentalservice.dto.CarSummaryDto;
+import com.krishnaproject.carrentalservice.dto.CatalogPageDto;
 import com.krishnaproject.carrentalservice.dto.CarWithCityDto;
+import com.krishnaproject.carrentalservice.dto.CityAvailabilityDto;
 import com.krishnaproject.carrentalservice.entity.Car;
 import com.krishnaproject.carrentalservice.entity.City;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
 import com.krishnaproject.carrentalservice.exception.CarNotFoundException;
 import com.krishnaproject.carrentalservice.exception.CityNotFoundException;
+import com.krishnaproject.carrentalservice.repository.AvailabilityJdbcRepository;
 import com.krishnaproject.carrentalservice.repository.CarRepository;
 import com.krishnaproject.carrentalservice.repository.CityRepository;
+import com.krishnaproject.carrentalservice.util.AvailabilityIndex.CityAvailability;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
 
 @Service
 public class CarService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private CarRepository carRepository;
     @Autowired
     private CityRepository cityRepository;
     @Autowired
     private RedissonClient redissonClient;
+    @Autowired
+    private CatalogChangePublisher catalogChangePublisher;
+    @Autowired
+    private AvailabilityIndexService availabilityIndexService;
+    @Autowired
+    private AvailabilityQueryCache availabilityQueryCache;
+    @Autowired
+    private AvailabilityJdbcRepository availabilityRepository;
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public List<Car> getAllCars() {
-        return carRepository.findAll();
+    @Value("${catalog.stream.chunk-size:500}")
+    private int streamChunkSize;
+
+    // Writes the fleet as a JSON array one keyset chunk at a time; each chunk is detached once written, so
+    // only chunk-size entities (with their images and specifications) are in memory at any point.
+    // Runs inside the caller's read-only transaction, which keeps every chunk on the same snapshot.
+    public void writeAllCars(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        writeChunks(generator, afterId -> carRepository.findByIdGreaterThanOrderById(afterId,
+                PageRequest.of(0, streamChunkSize)));
+        generator.writeEndArray();
+    }
+
+    public void writeCarsByCity(Long cityId, JsonGenerator generator) throws IOException {
+        // First verify city exists
+        if (!cityRepository.existsById(cityId)) {
+            throw new CityNotFoundException("City with ID " + cityId + " not found");
+        }
+
+        generator.writeStartArray();
+        long written = writeChunks(generator, afterId -> carRepository.findByCityIdAndIdGreaterThanOrderById(cityId,
+                afterId, PageRequest.of(0, streamChunkSize)));
+
+        // Check if any cars exist for this city; nothing has been sent yet, the body is still being built
+        if (written == 0) {
+            throw new CarNotFoundException("No cars found for city with ID " + cityId);
+        }
+        generator.writeEndArray();
+    }
+
+    private long writeChunks(JsonGenerator generator, LongFunction<List<Car>> chunkAfter) throws IOException {
+        long written = 0;
+        long afterId = 0;
+        List<Car> chunk;
+        do {
+            chunk = chunkAfter.apply(afterId);
+            for (Car car : chunk) {
+                generator.writeObject(car);
+            }
+            written += chunk.size();
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+            entityManager.clear();
+        } while (chunk.size() == streamChunkSize);
+        return written;
     }
 
+    // One extra row tells whether another page follows, so the last page needs no empty follow-up request
+    @Transactional(readOnly = true)
+    public CatalogPageDto getCatalogPage(Long cityId, Long afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        long cursor = afterId != null ? afterId : 0;
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<CarSummaryDto> rows = cityId != null
+                ? carRepository.findCatalogPageByCity(cityId, cursor, limit)
+                : carRepository.findCatalogPage(cursor, limit);
+
+        if (rows.size() <= size) {
+            return new CatalogPageDto(rows, null);
+        }
+        List<CarSummaryDto> page = new ArrayList<>(rows.subList(0, size));
+        return new CatalogPageDto(page, page.get(size - 1).getId());
+    }
+
+    @Transactional(readOnly = true)
     public CarWithCityDto getCarById(Long id) {
         Optional<Car> car = carRepository.findById(id);
         if(car.isPresent()) {
@@ -47,6 +141,7 @@ public class CarService {
         }
     }
 
+    @Transactional
     public Car createCar(CarDto carDto) {
         Car car = new Car();
         CarDto.carDtoToEntity(carDto, car);
@@ -61,7 +156,10 @@ public class CarService {
         }
 
         try {
-            return carRepository.save(car);
+            Car saved = carRepository.save(car);
+            catalogVersionService.recordChange(CatalogEntityType.CAR, saved.getId());
+            catalogChangePublisher.carChanged(saved.getId());
+            return saved;
         } catch (DataIntegrityViolationException | JpaSystemException e) {
             throw new IllegalArgumentException("Failed to update car due to data integrity violation: " + e.getMessage());
         }
@@ -90,6 +188,8 @@ public class CarService {
                 }
 
                 carRepository.save(car);
+                catalogVersionService.recordChange(CatalogEntityType.CAR, id);
+                catalogChangePublisher.carChanged(id);
             } else {
                 throw new RuntimeException("Could not acquire lock for admin update");
             }
@@ -100,7 +200,21 @@ public class CarService {
         }
     }
 
+    @Transactional(readOnly = true)
     public List<Car> getAvailableCarsByDateRange(Long cityId, LocalDate startDate, LocalDate endDate) {
+        // Answered from the in-memory index when the range is inside its horizon: one load by primary key,
+        // and the city is only looked up when no car matched
+        long[] carIds = availabilityIndexService.availableCarIds(cityId, startDate, endDate);
+        if (carIds != null) {
+            if (carIds.length == 0) {
+                if (!cityRepository.existsById(cityId)) {
+                    throw new CityNotFoundException("City with ID " + cityId + " not found");
+                }
+                return List.of();
+            }
+            return carRepository.findAllById(Arrays.stream(carIds).boxed().toList());
+        }
+
         if (!cityRepository.existsById(cityId)) {
             throw new CityNotFoundException("City with ID " + cityId + " not found");
         }
@@ -109,40 +223,52 @@ public class CarService {
             throw new IllegalArgumentException("Start date must be before end date");
         }
 
-        return carRepository.findAvailableCarsByCityAndDateRange(cityId, startDate, endDate);
+        // Outside the index: the ledger query, memoized per (city, range) until a booking or car edit touches it
+        long[] cachedIds = availabilityQueryCache.availableCarIds(cityId, startDate, endDate, () ->
+                carRepository.findAvailableCarsByCityAndDateRange(cityId, startDate, endDate).stream()
+                        .map(Car::getId)
+                        .toList());
+        if (cachedIds.length == 0) {
+            return List.of();
+        }
+        return carRepository.findAllById(Arrays.stream(cachedIds).boxed().toList());
     }
 
+    @Transactional
     public void deleteCar(Long id) {
         if (carRepository.existsById(id)) {
             carRepository.deleteById(id);
+            catalogVersionService.recordChange(CatalogEntityType.CAR, id);
+            catalogChangePublisher.carChanged(id);
         } else {
             throw new CarNotFoundException("Car with ID " + id + " not found.");
         }
     }
 
-    public List<Car> getCarsByCity(Long cityId) {
-        // First verify city exists
-        if (!cityRepository.existsById(cityId)) {
-            throw new CityNotFoundException("City with ID " + cityId + " not found");
+    // Today's counters from the index (one keyed read, kept current by booking events and car edits);
+    // one aggregate query over cars and the ledger when the index is not built
+    @Transactional(readOnly = true)
+    public CityAvailabilityDto getCityAvailability(Long cityId) {
+        LocalDate today = LocalDate.now();
+        CityAvailability availability = availabilityIndexService.cityAvailability(cityId, today);
+        if (availability == null) {
+            availability = availabilityRepository.cityAvailability(cityId, today);
         }
 
-        List<Car> cars = carRepository.findByCityId(cityId);
-
-        // Check if any cars exist for this city
-        if (cars.isEmpty()) {
-            throw new CarNotFoundException("No cars found for city with ID " + cityId);
+        if (availability.availableCars() == 0 && !cityRepository.existsById(cityId)) {
+            throw new CityNotFoundException("City with ID " + cityId + " not found");
         }
-
-        return cars;
+        return new CityAvailabilityDto(cityId, today, availability.availableCars(), availability.availableUnits());
     }
 
+    @Transactional(readOnly = true)
     public List<Car> getAvailableCarsByCity(Long cityId) {
         // First verify city exists
         if (!cityRepository.existsById(cityId)) {
             throw new CityNotFoundException("City with ID " + cityId + " not found");
         }
 
-        List<Car> availableCars = carRepository.findAvailableCarsByCity(cityId);
+        List<Car> availableCars = carRepository.findAvailableCarsByCity(cityId, LocalDate.now());
 
         // Check if any available cars exist for this city
         if (availableCars.isEmpty()) {
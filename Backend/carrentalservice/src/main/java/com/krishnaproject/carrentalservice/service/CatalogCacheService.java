@@ -0,0 +1,137 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.krishnaproject.carrentalservice.config.ReadWriteRoutingDataSource;
+import com.krishnaproject.carrentalservice.dto.CatalogChangeEvent;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import com.krishnaproject.carrentalservice.util.TtlLruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Public catalog responses kept as ready-to-send gzipped JSON, keyed "cars", "cities", "car:{id}" and "city:{id}".
+// A hit never touches the database (no transaction, no connection) and costs no compression; gzip also keeps
+// the cached fleet list several times smaller. Admin writes evict through
+// CatalogChangeEvent; the TTL only bounds how stale an instance gets if a broadcast is lost. Loads read the
+// replica, except within replica-max-lag of a change, when they read the primary: the replica may not have the
+// write yet, and its bytes would be cached under an old version until the TTL runs out.
+@Service
+public class CatalogCacheService {
+
+    public static final String ALL_CARS = "cars";
+    public static final String ALL_CITIES = "cities";
+
+    // gzipBody is the catalog as of version; the version is the strong ETag (suffixed for the gzip body)
+    public record Cached(long version, byte[] gzipBody) {}
+
+    // Writes one JSON value; large lists write their elements as they are read instead of building a List
+    @FunctionalInterface
+    public interface JsonBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    // Bumped on every eviction, so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${catalog.cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${catalog.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${app.datasource.replica.max-lag-ms:2000}")
+    private long replicaMaxLagMs;
+
+    // Loads read the primary until then
+    private volatile long primaryUntilMs;
+
+    private TtlLruCache<String, Cached> cache;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        cache = new TtlLruCache<>(maxEntries, TimeUnit.SECONDS.toMillis(ttlSeconds));
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public static String carKey(Long carId) {
+        return "car:" + carId;
+    }
+
+    public static String cityKey(Long cityId) {
+        return "city:" + cityId;
+    }
+
+    public Cached getVersioned(String key, Supplier<Object> loader) {
+        return getStreamed(key, generator -> generator.writeObject(loader.get()));
+    }
+
+    // Serializes inside a read-only transaction so lazy images and specifications load before it closes.
+    // The version is read first in the same transaction, so it names exactly the snapshot that was serialized.
+    public Cached getStreamed(String key, JsonBody body) {
+        Cached cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        Supplier<Cached> load = () -> readOnlyTransaction.execute(status -> {
+            long version = catalogVersionService.currentVersion();
+            return new Cached(version, gzip(body));
+        });
+        Cached loaded = System.currentTimeMillis() < primaryUntilMs
+                ? ReadWriteRoutingDataSource.onPrimary(load)
+                : load.get();
+        if (generation.get() == loadedAt) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    // A car may have moved between cities, so every city list goes along with it
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        primaryUntilMs = System.currentTimeMillis() + replicaMaxLagMs;
+        generation.incrementAndGet();
+        cache.remove(ALL_CARS);
+        // Cities are serialized with their cars
+        cache.remove(ALL_CITIES);
+        if (event.getType() == CatalogEntityType.CAR) {
+            cache.remove(carKey(event.getId()));
+        }
+        cache.removeIf(key -> key.startsWith("city:"));
+    }
+
+    private byte[] gzip(JsonBody body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, 8192);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip)) {
+            body.write(generator);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize catalog response", e);
+        }
+        return bytes.toByteArray();
+    }
+}
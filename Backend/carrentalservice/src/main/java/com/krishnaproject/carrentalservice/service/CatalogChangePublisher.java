@@ -0,0 +1,97 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.CatalogChangeEvent;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+// Turns admin catalog writes into CatalogChangeEvents on every instance: raised locally right after commit
+// and broadcast over the Redis topic catalog:changes to the other instances.
+// Messages are "<instance>:<CAR|CITY>:<id>"; an instance skips its own messages.
+@Slf4j
+@Service
+public class CatalogChangePublisher {
+
+    private static final String TOPIC = "catalog:changes";
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private int listenerId;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerId = topic().addListener(String.class, (channel, message) -> {
+            String[] parts = message.split(":");
+            if (parts.length != 3 || parts[0].equals(instanceId)) {
+                return;
+            }
+            raise(new CatalogChangeEvent(CatalogEntityType.valueOf(parts[1]), Long.valueOf(parts[2])));
+        });
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        topic().removeListener(listenerId);
+    }
+
+    public void carChanged(Long carId) {
+        publishAfterCommit(new CatalogChangeEvent(CatalogEntityType.CAR, carId));
+    }
+
+    public void cityChanged(Long cityId) {
+        publishAfterCommit(new CatalogChangeEvent(CatalogEntityType.CITY, cityId));
+    }
+
+    private void publishAfterCommit(CatalogChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+
+    private void publish(CatalogChangeEvent event) {
+        raise(event);
+        try {
+            topic().publish(instanceId + ":" + event.getType() + ":" + event.getId());
+        } catch (RuntimeException e) {
+            // Other instances fall back on their cache TTL
+            log.error("Failed to broadcast catalog change {}", event, e);
+        }
+    }
+
+    private void raise(CatalogChangeEvent event) {
+        try {
+            applicationEventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("Catalog change listener failed for {}", event, e);
+        }
+    }
+
+    private RTopic topic() {
+        return redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+    }
+}
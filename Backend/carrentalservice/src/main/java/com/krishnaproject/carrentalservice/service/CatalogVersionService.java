@@ -0,0 +1,124 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.CarSummaryDto;
+import com.krishnaproject.carrentalservice.dto.CatalogDeltaDto;
+import com.krishnaproject.carrentalservice.entity.CatalogChange;
+import com.krishnaproject.carrentalservice.entity.CatalogVersion;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import com.krishnaproject.carrentalservice.repository.CatalogChangeRepository;
+import com.krishnaproject.carrentalservice.repository.CatalogVersionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Catalog versions for conditional GETs and delta sync. Every car/city write takes the next version in its
+// own transaction (the version row is locked until commit, so admin writes are serialized) and logs which
+// entity changed. Clients send back the version they hold and get only the cars changed since.
+@Slf4j
+@Service
+public class CatalogVersionService {
+
+    @Autowired
+    private CatalogVersionRepository versionRepository;
+
+    @Autowired
+    private CatalogChangeRepository changeRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${catalog.changes.retention-days:30}")
+    private int retentionDays;
+
+    // Larger deltas are answered with resetRequired; reloading the catalog is cheaper by then
+    @Value("${catalog.changes.max-delta:5000}")
+    private int maxDelta;
+
+    private TransactionTemplate writeTransaction;
+
+    @PostConstruct
+    void init() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.executeWithoutResult(status -> versionRepository.createIfMissing(CatalogVersion.ROW_ID));
+    }
+
+    @Transactional
+    public long recordChange(CatalogEntityType type, Long id) {
+        CatalogVersion version = lockVersion();
+        version.setVersion(version.getVersion() + 1);
+        changeRepository.save(new CatalogChange(null, version.getVersion(), type, id, LocalDateTime.now()));
+        return version.getVersion();
+    }
+
+    // Call inside the transaction that reads the catalog: on MySQL the snapshot starts at this read, so the
+    // data read next is exactly the catalog at this version
+    public long currentVersion() {
+        return versionRepository.findById(CatalogVersion.ROW_ID).map(CatalogVersion::getVersion).orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public CatalogDeltaDto changesSince(long since) {
+        CatalogVersion current = versionRepository.findById(CatalogVersion.ROW_ID)
+                .orElseThrow(() -> new IllegalStateException("Catalog version row is missing"));
+        long version = current.getVersion();
+
+        if (since < current.getPrunedThrough() || since > version) {
+            return new CatalogDeltaDto(version, true, List.of(), List.of());
+        }
+        if (since == version) {
+            return new CatalogDeltaDto(version, false, List.of(), List.of());
+        }
+
+        // A renamed city changes the cityName of each of its cars
+        Set<Long> carIds = new LinkedHashSet<>(changeRepository.findChangedIds(CatalogEntityType.CAR, since, version));
+        List<Long> cityIds = changeRepository.findChangedIds(CatalogEntityType.CITY, since, version);
+        if (!cityIds.isEmpty()) {
+            carIds.addAll(carRepository.findIdsByCityIds(cityIds));
+        }
+        if (carIds.size() > maxDelta) {
+            return new CatalogDeltaDto(version, true, List.of(), List.of());
+        }
+        if (carIds.isEmpty()) {
+            return new CatalogDeltaDto(version, false, List.of(), List.of());
+        }
+
+        List<CarSummaryDto> changed = carRepository.findCatalogRows(carIds);
+        changed.forEach(car -> carIds.remove(car.getId()));
+        return new CatalogDeltaDto(version, false, changed, new ArrayList<>(carIds));
+    }
+
+    @Scheduled(cron = "${catalog.changes.prune-cron:0 30 3 * * *}")
+    @Transactional
+    public void pruneChanges() {
+        Long through = changeRepository.findMaxVersionBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (through == null) {
+            return;
+        }
+
+        CatalogVersion version = lockVersion();
+        version.setPrunedThrough(Math.max(version.getPrunedThrough(), through));
+        int removed = changeRepository.deleteThroughVersion(through);
+        log.info("Pruned {} catalog changes through version {}", removed, through);
+    }
+
+    private CatalogVersion lockVersion() {
+        return versionRepository.findByIdWithLock(CatalogVersion.ROW_ID)
+                .orElseThrow(() -> new IllegalStateException("Catalog version row is missing"));
+    }
+}
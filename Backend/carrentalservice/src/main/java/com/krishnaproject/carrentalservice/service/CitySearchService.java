@@ -0,0 +1,83 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.CatalogChangeEvent;
+import com.krishnaproject.carrentalservice.dto.CityNameAndIdDto;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import com.krishnaproject.carrentalservice.repository.CityRepository;
+import com.krishnaproject.carrentalservice.util.PrefixIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// City picker autocomplete: matches the start of the city name, of any word in it, or of the pin code.
+// The sorted-array PrefixIndex is rebuilt from the (id, name, pin code) projection whenever a city changes on
+// any instance; tens of thousands of cities rebuild in milliseconds, and lookups read whichever index is current.
+@Slf4j
+@Service
+public class CitySearchService {
+
+    private static final Comparator<CityNameAndIdDto> BY_NAME =
+            Comparator.comparing(CityNameAndIdDto::getCityName,
+                            Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(CityNameAndIdDto::getPinCode, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Value("${catalog.city-search.max-results:20}")
+    private int maxResults;
+
+    private volatile PrefixIndex<CityNameAndIdDto> index;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedNs = System.nanoTime();
+        PrefixIndex<CityNameAndIdDto> next = new PrefixIndex<>(cityRepository.findAllProjectedBy(),
+                CitySearchService::keys, BY_NAME, maxResults);
+        index = next;
+        log.info("City search index built: {} cities, {} keys, {} ms",
+                next.size(), next.keyCount(), (System.nanoTime() - startedNs) / 1_000_000);
+    }
+
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.getType() == CatalogEntityType.CITY) {
+            rebuild();
+        }
+    }
+
+    public List<CityNameAndIdDto> search(String query, int limit) {
+        if (limit < 1 || limit > maxResults) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxResults);
+        }
+        PrefixIndex<CityNameAndIdDto> current = index;
+        if (current == null) {
+            rebuild();
+            current = index;
+        }
+        return current.search(query, limit);
+    }
+
+    private static List<String> keys(CityNameAndIdDto city) {
+        List<String> keys = new ArrayList<>();
+        if (city.getCityName() != null) {
+            String name = PrefixIndex.normalize(city.getCityName());
+            keys.add(name);
+            // "new delhi" is also found by "del"
+            for (int space = name.indexOf(' '); space >= 0; space = name.indexOf(' ', space + 1)) {
+                keys.add(name.substring(space + 1));
+            }
+        }
+        if (city.getPinCode() != null) {
+            keys.add(city.getPinCode().toString());
+        }
+        return keys;
+    }
+}
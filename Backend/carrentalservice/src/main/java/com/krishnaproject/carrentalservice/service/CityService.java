@@ -2,10 +2,12 @@ package com.krishnaproject.carrentalservice.service;
 
 import com.krishnaproject.carrentalservice.dto.CityDto;
 import com.krishnaproject.carrentalservice.entity.City;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
 import com.krishnaproject.carrentalservice.exception.CityAlreadyExistsException;
 import com.krishnaproject.carrentalservice.repository.CityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,10 +18,18 @@ public class CityService {
     @Autowired
     private CityRepository cityRepository;
 
+    @Autowired
+    private CatalogChangePublisher catalogChangePublisher;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Transactional(readOnly = true)
     public List<City> getAllCities() {
         return cityRepository.findAll();
     }
 
+    @Transactional
     public City createCity(CityDto cityDto) {
         Optional<City> existingCity = cityRepository.findByPinCode(cityDto.getPinCode());
 
@@ -34,6 +44,9 @@ public class CityService {
         city.setCityName(cityDto.getCityName());
         city.setPinCode(cityDto.getPinCode());
 
-        return cityRepository.save(city);
+        City saved = cityRepository.save(city);
+        catalogVersionService.recordChange(CatalogEntityType.CITY, saved.getId());
+        catalogChangePublisher.cityChanged(saved.getId());
+        return saved;
     }
 }
\ No newline at end of file
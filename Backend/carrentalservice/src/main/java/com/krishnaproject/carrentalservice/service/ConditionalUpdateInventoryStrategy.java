@@ -0,0 +1,60 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.CarNotFoundException;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// No Redisson lock and no car row lock: the ledger's "reserved + units <= capacity" UPDATE is the only guard.
+// Day rows are updated in index order, so overlapping bookings wait on each other instead of deadlocking.
+@Service
+@ConditionalOnProperty(name = "booking.inventory.strategy", havingValue = "conditional-update")
+public class ConditionalUpdateInventoryStrategy implements InventoryStrategy {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Override
+    public Car reserve(Long carId, LocalDate startDate, LocalDate endDate) {
+        Car car = carRepository.findById(carId)
+                .orElseThrow(() -> new CarNotFoundException("Car not found"));
+
+        inventoryLedgerService.reserve(car, startDate, endDate);
+        return car;
+    }
+
+    // Cars are updated in ascending id order, the same order every group uses
+    @Override
+    public List<Car> reserveAll(Map<Long, Integer> unitsByCarId, LocalDate startDate, LocalDate endDate) {
+        List<Car> cars = new ArrayList<>(carRepository.findAllById(unitsByCarId.keySet()));
+        if (cars.size() < unitsByCarId.size()) {
+            throw new CarNotFoundException("Car not found");
+        }
+        cars.sort(Comparator.comparing(Car::getId));
+
+        inventoryLedgerService.reserveAll(cars, unitsByCarId, startDate, endDate);
+        return cars;
+    }
+
+    @Override
+    public void release(Long carId, LocalDate startDate, LocalDate endDate) {
+        inventoryLedgerService.release(carId, startDate, endDate);
+    }
+
+    @Override
+    public void releaseAll(List<Booking> bookings) {
+        inventoryLedgerService.releaseAll(bookings);
+    }
+}
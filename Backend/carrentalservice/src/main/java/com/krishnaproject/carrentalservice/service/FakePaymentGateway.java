@@ -0,0 +1,40 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.PaymentRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+// Local stand-in for a real provider: answers after a fixed delay and approves most payments
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "fake", matchIfMissing = true)
+public class FakePaymentGateway implements PaymentGateway {
+
+    @Value("${payment.fake.latency-ms:1000}")
+    private long latencyMs;
+
+    @Value("${payment.fake.approval-rate:0.95}")
+    private double approvalRate;
+
+    @Override
+    public boolean authorize(Long paymentId, PaymentRequestDto payment) {
+        return respond() && Math.random() < approvalRate;
+    }
+
+    @Override
+    public void voidAuthorization(Long paymentId) {
+        if (!respond()) {
+            throw new RuntimeException("Void of payment " + paymentId + " was interrupted");
+        }
+    }
+
+    private boolean respond() {
+        try {
+            Thread.sleep(latencyMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
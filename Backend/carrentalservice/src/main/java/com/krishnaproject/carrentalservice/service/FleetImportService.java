@@ -0,0 +1,410 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.krishnaproject.carrentalservice.dto.CarDto;
+import com.krishnaproject.carrentalservice.dto.CityNameAndIdDto;
+import com.krishnaproject.carrentalservice.dto.FleetImportEventDto;
+import com.krishnaproject.carrentalservice.dto.SpecificationsDto;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.entity.City;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import com.krishnaproject.carrentalservice.repository.CarJdbcRepository;
+import com.krishnaproject.carrentalservice.repository.CityRepository;
+import com.krishnaproject.carrentalservice.util.CsvReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Bulk fleet import for onboarding a branch. The upload is parsed one row at a time (CSV with a header row,
+// or NDJSON with one CarDto per line); cities are resolved by id or pin code from a map loaded once, and valid
+// rows are written batch-size at a time through CarJdbcRepository, each batch in its own transaction.
+// A bad row is reported and skipped. A batch the database refuses is split in halves until the rows it
+// refuses are found, so one bad row costs a few extra round trips rather than its whole batch.
+// Listeners get one CITY change per affected city at the end instead of one CAR change per imported car.
+@Slf4j
+@Service
+public class FleetImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String[] CSV_COLUMNS = {"carName", "brand", "pricePerDay", "count", "details", "cityId",
+            "pinCode", "engine", "cc", "transmission", "seatingCapacity", "fuelType", "images"};
+
+    private record Row(int line, CarDto car, Long pinCode) {}
+
+    private interface RowReader {
+        // Null at the end of the input; throws IllegalArgumentException for a row that cannot be read
+        Row next() throws IOException;
+
+        // Line of the row the last next() call was reading
+        int line();
+    }
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private CarJdbcRepository carJdbcRepository;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private CatalogChangePublisher catalogChangePublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${fleet.import.batch-size:1000}")
+    private int batchSize;
+
+    // The import stops once this many rows failed; the file is most likely wrong as a whole
+    @Value("${fleet.import.max-errors:1000}")
+    private int maxErrors;
+
+    private TransactionTemplate writeTransaction;
+
+    @PostConstruct
+    void init() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void importFleet(InputStream upload, Format format, Charset charset, OutputStream out) throws IOException {
+        new ImportRun(out).run(new BufferedReader(new InputStreamReader(upload, charset), 64 * 1024), format);
+    }
+
+    private class ImportRun {
+
+        private final OutputStream out;
+        private final long startedMs = System.currentTimeMillis();
+
+        private final Set<Long> cityIds = new HashSet<>();
+        private final Map<Long, Long> cityIdByPinCode = new HashMap<>();
+        private final Map<Long, City> cityRefs = new HashMap<>();
+
+        private final List<Car> batch = new ArrayList<>();
+        private final List<Integer> batchLines = new ArrayList<>();
+        private final Set<Long> touchedCities = new LinkedHashSet<>();
+
+        private long rowsRead;
+        private long imported;
+        private long failed;
+
+        ImportRun(OutputStream out) {
+            this.out = out;
+        }
+
+        void run(BufferedReader reader, Format format) throws IOException {
+            for (CityNameAndIdDto city : cityRepository.findAllProjectedBy()) {
+                cityIds.add(city.getId());
+                if (city.getPinCode() != null) {
+                    cityIdByPinCode.put(city.getPinCode(), city.getId());
+                }
+            }
+
+            String stoppedBecause = null;
+            try {
+                RowReader rows = format == Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+                while (failed <= maxErrors) {
+                    Row row;
+                    try {
+                        row = rows.next();
+                    } catch (IllegalArgumentException e) {
+                        rowsRead++;
+                        reject(rows.line(), e.getMessage());
+                        continue;
+                    }
+                    if (row == null) {
+                        break;
+                    }
+
+                    rowsRead++;
+                    String error = accept(row);
+                    if (error != null) {
+                        reject(row.line(), error);
+                    } else if (batch.size() >= batchSize) {
+                        flush();
+                    }
+                }
+                if (failed > maxErrors) {
+                    stoppedBecause = "Stopped after " + failed + " failed rows";
+                }
+                flush();
+            } catch (UnreadableUploadException e) {
+                flush();
+                stoppedBecause = e.getMessage();
+            } finally {
+                // Committed batches are announced even if the upload broke off
+                touchedCities.forEach(catalogChangePublisher::cityChanged);
+            }
+
+            long durationMs = System.currentTimeMillis() - startedMs;
+            log.info("Fleet import: {} rows read, {} imported, {} failed in {} ms{}", rowsRead, imported, failed,
+                    durationMs, stoppedBecause != null ? " (" + stoppedBecause + ")" : "");
+            write(FleetImportEventDto.done(rowsRead, imported, failed, durationMs, stoppedBecause));
+            out.flush();
+        }
+
+        // Null when the row was queued, otherwise why it was rejected
+        private String accept(Row row) {
+            CarDto dto = row.car();
+            if (row.pinCode() != null) {
+                Long cityId = cityIdByPinCode.get(row.pinCode());
+                if (cityId == null) {
+                    return "No city with pin code " + row.pinCode();
+                }
+                if (dto.getCityId() != null && !dto.getCityId().equals(cityId)) {
+                    return "cityId " + dto.getCityId() + " does not match pin code " + row.pinCode();
+                }
+                dto.setCityId(cityId);
+            }
+
+            Set<ConstraintViolation<CarDto>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                return violations.stream().map(ConstraintViolation::getMessage).sorted()
+                        .collect(Collectors.joining("; "));
+            }
+            if (!cityIds.contains(dto.getCityId())) {
+                return "No city with ID " + dto.getCityId();
+            }
+
+            Car car = new Car();
+            CarDto.carDtoToEntity(dto, car);
+            if (car.getSpecifications() != null) {
+                car.getSpecifications().setId(null);
+            }
+            car.setCity(cityRefs.computeIfAbsent(dto.getCityId(), id -> {
+                City city = new City();
+                city.setId(id);
+                return city;
+            }));
+            batch.add(car);
+            batchLines.add(row.line());
+            return null;
+        }
+
+        private void flush() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            writeBatch(batch, batchLines);
+            batch.clear();
+            batchLines.clear();
+
+            write(FleetImportEventDto.progress(rowsRead, imported, failed));
+            out.flush();
+        }
+
+        // Writes the cars in one transaction; if that fails, writes each half on its own, down to single rows,
+        // which are then rejected with the database's reason
+        private void writeBatch(List<Car> cars, List<Integer> lines) throws IOException {
+            Set<Long> batchCities = new LinkedHashSet<>();
+            cars.forEach(car -> batchCities.add(car.getCity().getId()));
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    carJdbcRepository.insertAll(cars);
+                    // A CITY change makes delta sync send every car of the city, the new ones included
+                    batchCities.forEach(cityId -> catalogVersionService.recordChange(CatalogEntityType.CITY, cityId));
+                });
+                imported += cars.size();
+                touchedCities.addAll(batchCities);
+            } catch (DataAccessException e) {
+                if (cars.size() == 1) {
+                    log.debug("Fleet import row on line {} failed", lines.get(0), e);
+                    reject(lines.get(0), "Write failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                    return;
+                }
+                log.warn("Fleet import batch of {} rows failed, retrying it in halves: {}", cars.size(),
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                int half = cars.size() / 2;
+                writeBatch(cars.subList(0, half), lines.subList(0, half));
+                writeBatch(cars.subList(half, cars.size()), lines.subList(half, lines.size()));
+            }
+        }
+
+        private void reject(int line, String message) throws IOException {
+            failed++;
+            write(FleetImportEventDto.error(line, message));
+        }
+
+        private void write(FleetImportEventDto event) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+        }
+    }
+
+    // The upload itself cannot be read any further (broken quoting, missing header); ends the import
+    private static class UnreadableUploadException extends IOException {
+        UnreadableUploadException(String message) {
+            super(message);
+        }
+    }
+
+    private RowReader csvRows(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (IllegalArgumentException e) {
+            throw new UnreadableUploadException(e.getMessage());
+        }
+        if (header == null) {
+            throw new UnreadableUploadException("The upload is empty");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("carname") || !(columns.containsKey("cityid") || columns.containsKey("pincode"))) {
+            throw new UnreadableUploadException("The header needs carName and cityId or pinCode; known columns are "
+                    + String.join(", ", CSV_COLUMNS));
+        }
+
+        return new RowReader() {
+            @Override
+            public Row next() throws IOException {
+                List<String> fields;
+                try {
+                    fields = csv.next();
+                } catch (IllegalArgumentException e) {
+                    throw new UnreadableUploadException(e.getMessage());
+                }
+                if (fields == null) {
+                    return null;
+                }
+                return csvRow(csv.recordLine(), columns, fields);
+            }
+
+            @Override
+            public int line() {
+                return csv.recordLine();
+            }
+        };
+    }
+
+    private Row csvRow(int line, Map<String, Integer> columns, List<String> fields) {
+        CarDto car = new CarDto();
+        car.setCarName(text(columns, fields, "carName"));
+        car.setBrand(text(columns, fields, "brand"));
+        car.setDetails(text(columns, fields, "details"));
+        Double price = number(columns, fields, "pricePerDay", Double::valueOf);
+        car.setPricePerDay(price != null ? price : 0);
+        Integer count = number(columns, fields, "count", Integer::valueOf);
+        car.setCount(count != null ? count : 0);
+        car.setCityId(number(columns, fields, "cityId", Long::valueOf));
+
+        String engine = text(columns, fields, "engine");
+        String transmission = text(columns, fields, "transmission");
+        String fuelType = text(columns, fields, "fuelType");
+        Integer cc = number(columns, fields, "cc", Integer::valueOf);
+        Integer seats = number(columns, fields, "seatingCapacity", Integer::valueOf);
+        if (engine != null || transmission != null || fuelType != null || cc != null || seats != null) {
+            car.setSpecifications(new SpecificationsDto(null, engine, cc != null ? cc : 0, transmission,
+                    seats != null ? seats : 0, fuelType));
+        }
+
+        // Image urls separated by |
+        String images = text(columns, fields, "images");
+        if (images != null) {
+            List<String> urls = new ArrayList<>();
+            for (String url : images.split("\\|")) {
+                if (!url.isBlank()) {
+                    urls.add(url.trim());
+                }
+            }
+            car.setImages(urls);
+        }
+        return new Row(line, car, number(columns, fields, "pinCode", Long::valueOf));
+    }
+
+    private static String text(Map<String, Integer> columns, List<String> fields, String column) {
+        Integer index = columns.get(column.toLowerCase(Locale.ROOT));
+        if (index == null || index >= fields.size() || fields.get(index).isBlank()) {
+            return null;
+        }
+        return fields.get(index).trim();
+    }
+
+    private static <N> N number(Map<String, Integer> columns, List<String> fields, String column,
+                                Function<String, N> parse) {
+        String value = text(columns, fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parse.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private RowReader ndjsonRows(BufferedReader reader) {
+        return new RowReader() {
+            private int line;
+
+            @Override
+            public Row next() throws IOException {
+                String text;
+                do {
+                    text = reader.readLine();
+                    line++;
+                } while (text != null && text.isBlank());
+                if (text == null) {
+                    return null;
+                }
+
+                try {
+                    JsonNode node = objectMapper.readTree(text);
+                    if (!node.isObject()) {
+                        throw new IllegalArgumentException("Each line must be one JSON object");
+                    }
+                    CarDto car = objectMapper.treeToValue(node, CarDto.class);
+                    Long pinCode = node.hasNonNull("pinCode") ? node.get("pinCode").asLong() : null;
+                    return new Row(line, car, pinCode);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+
+            @Override
+            public int line() {
+                return line;
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.krishnaproject.carrentalservice.exception.IdempotencyConflictException;
+import com.krishnaproject.carrentalservice.util.TtlLruCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Replays of a request carrying the same Idempotency-Key get the first response back without running it again.
+// Responses live in Redis for the TTL and in a small near-cache so hot replays skip Redis too.
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final String IN_PROGRESS = "__in_progress__";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${idempotency.in-progress-ttl-seconds:30}")
+    private long inProgressTtlSeconds;
+
+    @Value("${idempotency.near-cache-size:10000}")
+    private int nearCacheSize;
+
+    private TtlLruCache<String, String> nearCache;
+
+    @PostConstruct
+    void init() {
+        nearCache = new TtlLruCache<>(nearCacheSize, Duration.ofSeconds(ttlSeconds).toMillis());
+    }
+
+    // Runs action once per (scope, key); a missing key runs it every time
+    public <T> T execute(String scope, String key, Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String storeKey = "idempotency:" + scope + ":" + key;
+
+        String stored = nearCache.get(storeKey);
+        if (stored != null) {
+            return read(stored, responseType);
+        }
+
+        RBucket<String> bucket = redissonClient.getBucket(storeKey, StringCodec.INSTANCE);
+        if (!bucket.setIfAbsent(IN_PROGRESS, Duration.ofSeconds(inProgressTtlSeconds))) {
+            stored = bucket.get();
+            if (stored == null || IN_PROGRESS.equals(stored)) {
+                throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+            }
+            nearCache.put(storeKey, stored);
+            return read(stored, responseType);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Failed attempts are not remembered, so the client can retry with the same key
+            bucket.delete();
+            throw e;
+        }
+
+        String json = write(response);
+        bucket.set(json, Duration.ofSeconds(ttlSeconds));
+        nearCache.put(storeKey, json);
+        return response;
+    }
+
+    private <T> T read(String json, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(json, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for idempotent replay", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Stand-in for tests and local runs without Redis Streams: keeps the newest max-len events of each
+// partition in memory and dispatches every event to local listeners as it is published.
+@Service
+@ConditionalOnProperty(name = "booking.events.stream", havingValue = "in-memory")
+public class InMemoryBookingEventStream implements BookingEventStream {
+
+    private final Map<Integer, Deque<BookingEvent>> eventsByPartition = new HashMap<>();
+
+    @Autowired
+    private BookingEventDispatcher dispatcher;
+
+    @Value("${booking.events.partitions:4}")
+    private int partitions;
+
+    @Value("${booking.events.stream-max-len:100000}")
+    private int maxLen;
+
+    @Override
+    public void publish(List<BookingEvent> events) {
+        synchronized (eventsByPartition) {
+            for (BookingEvent event : events) {
+                Deque<BookingEvent> partition = eventsByPartition.computeIfAbsent(
+                        BookingEventStream.partitionOf(event.getCarId(), partitions), p -> new ArrayDeque<>());
+                partition.addLast(event);
+                if (partition.size() > maxLen) {
+                    partition.removeFirst();
+                }
+            }
+        }
+
+        events.forEach(dispatcher::dispatch);
+    }
+
+    public List<BookingEvent> events(int partition) {
+        synchronized (eventsByPartition) {
+            return new ArrayList<>(eventsByPartition.getOrDefault(partition, new ArrayDeque<>()));
+        }
+    }
+}
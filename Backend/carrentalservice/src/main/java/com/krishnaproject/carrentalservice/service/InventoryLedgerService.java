@@ -0,0 +1,91 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.InventoryUnavailableException;
+import com.krishnaproject.carrentalservice.repository.CarDailyInventoryRepository;
+import com.krishnaproject.carrentalservice.repository.InventoryLedgerJdbcRepository;
+import com.krishnaproject.carrentalservice.repository.InventoryLedgerJdbcRepository.SlotKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class InventoryLedgerService {
+
+    @Autowired
+    private CarDailyInventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryLedgerJdbcRepository ledgerJdbcRepository;
+
+    // A booking holds the car on every day from startDate to endDate, both inclusive
+    public static int daysHeld(LocalDate startDate, LocalDate endDate) {
+        return (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+    }
+
+    @Transactional
+    public void reserve(Car car, LocalDate startDate, LocalDate endDate) {
+        ledgerJdbcRepository.ensureSlots(List.of(car.getId()), startDate, endDate);
+        reserveUnits(car, 1, startDate, endDate);
+    }
+
+    // All-or-nothing across cars: the first sold-out car throws and the transaction rolls every car back
+    @Transactional
+    public void reserveAll(List<Car> cars, Map<Long, Integer> unitsByCarId, LocalDate startDate, LocalDate endDate) {
+        ledgerJdbcRepository.ensureSlots(unitsByCarId.keySet(), startDate, endDate);
+        for (Car car : cars) {
+            reserveUnits(car, unitsByCarId.get(car.getId()), startDate, endDate);
+        }
+    }
+
+    private void reserveUnits(Car car, int units, LocalDate startDate, LocalDate endDate) {
+        int reservedDays = inventoryRepository.reserveSlots(car.getId(), startDate, endDate, units, car.getCount());
+
+        // Some day is already sold out; throwing rolls back the days that were taken
+        if (reservedDays < daysHeld(startDate, endDate)) {
+            throw new InventoryUnavailableException("Car " + car.getId() + " is not available for the selected dates");
+        }
+    }
+
+    @Transactional
+    public void release(Long carId, LocalDate startDate, LocalDate endDate) {
+        int releasedDays = inventoryRepository.releaseSlots(carId, startDate, endDate);
+
+        if (releasedDays < daysHeld(startDate, endDate)) {
+            log.warn("Ledger for car {} had fewer holds than expected between {} and {}", carId, startDate, endDate);
+        }
+    }
+
+    @Transactional
+    public void releaseAll(List<Booking> bookings) {
+        ledgerJdbcRepository.applyDeltas(releaseDeltas(bookings));
+    }
+
+    // -1 per booking per held day, summed per car and day
+    public static Map<SlotKey, Integer> releaseDeltas(List<Booking> bookings) {
+        Map<SlotKey, Integer> deltas = new HashMap<>();
+        for (Booking booking : bookings) {
+            Long carId = booking.getCar().getId();
+            for (LocalDate day = booking.getStartDate(); !day.isAfter(booking.getEndDate()); day = day.plusDays(1)) {
+                deltas.merge(new SlotKey(carId, day), -1, Integer::sum);
+            }
+        }
+        return deltas;
+    }
+
+    // Days in the past no longer affect availability
+    @Transactional
+    public void pruneBefore(LocalDate day) {
+        int removed = inventoryRepository.deleteSlotsBefore(day);
+        log.info("Pruned {} inventory rows before {}", removed, day);
+    }
+}
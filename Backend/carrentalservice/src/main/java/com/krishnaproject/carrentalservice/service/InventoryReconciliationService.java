@@ -0,0 +1,186 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.ReconciliationReportDto;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import com.krishnaproject.carrentalservice.repository.InventoryLedgerJdbcRepository;
+import com.krishnaproject.carrentalservice.repository.InventoryLedgerJdbcRepository.SlotKey;
+import com.krishnaproject.carrentalservice.repository.InventoryReconciliationJdbcRepository;
+import com.krishnaproject.carrentalservice.util.Throttle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Compares the ledger with the bookings that should be holding it (PENDING/CONFIRMED, today onward).
+// First pass: both tables read chunk-cars cars at a time in car order, throttled to max-rows-per-second so it
+// can run in business hours; each chunk is two short queries, so no connection is held for the whole run.
+// Cars that differ are re-checked after a settle delay (lets write-behind flushes land) with the car row
+// locked, counting changes still queued for the ledger; only drift that survives the re-check is reported,
+// and repaired when repair is on. A repair fixes MySQL's ledger and then evicts the car from the inventory
+// strategy, so the redis-script and sharded strategies load the repaired days on the car's next reservation.
+@Slf4j
+@Service
+public class InventoryReconciliationService {
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    private InventoryReconciliationJdbcRepository reconciliationRepository;
+
+    @Autowired
+    private InventoryLedgerJdbcRepository ledgerJdbcRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private InventoryWriteBehind writeBehind;
+
+    @Autowired
+    private InventoryStrategy inventoryStrategy;
+
+    @Lazy
+    @Autowired
+    private InventoryReconciliationService self;
+
+    @Value("${booking.reconcile.repair:false}")
+    private boolean repairByDefault;
+
+    @Value("${booking.reconcile.max-rows-per-second:5000}")
+    private int maxRowsPerSecond;
+
+    @Value("${booking.reconcile.chunk-cars:500}")
+    private int chunkCars;
+
+    @Value("${booking.reconcile.settle-ms:1000}")
+    private long settleMs;
+
+    // Suspects beyond this are counted but not re-checked in the same run
+    @Value("${booking.reconcile.max-suspects:10000}")
+    private int maxSuspects;
+
+    @Scheduled(cron = "${booking.reconcile.cron:0 0 */6 * * *}")
+    public void scheduledRun() {
+        ReconciliationReportDto report = reconcile(repairByDefault);
+        if (report != null) {
+            log.info("Inventory reconciliation: {}", report);
+        }
+    }
+
+    // Returns null when a run is already in progress on this instance
+    public ReconciliationReportDto reconcile(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+
+        try {
+            long startedMs = System.currentTimeMillis();
+            LocalDate today = LocalDate.now();
+            ReconciliationReportDto report = new ReconciliationReportDto();
+            report.setRepair(repair);
+
+            List<Long> suspects = new ArrayList<>();
+            Throttle throttle = new Throttle(maxRowsPerSecond);
+            long rows = 0;
+            long afterId = 0;
+            List<Long> carIds;
+            do {
+                carIds = reconciliationRepository.nextCarIds(today, afterId, chunkCars);
+                if (carIds.isEmpty()) {
+                    break;
+                }
+                long chunkRows = reconciliationRepository.compareCarHolds(carIds, today, (carId, capacity, expected, actual) -> {
+                    report.setCarsScanned(report.getCarsScanned() + 1);
+                    if (capacity > 0) {
+                        report.setOverbookedDays(report.getOverbookedDays()
+                                + expected.values().stream().filter(units -> units > capacity).count());
+                    }
+                    if (!expected.equals(actual)) {
+                        report.setSuspectCars(report.getSuspectCars() + 1);
+                        if (suspects.size() < maxSuspects) {
+                            suspects.add(carId);
+                        }
+                    }
+                });
+                rows += chunkRows;
+                throttle.acquire((int) chunkRows);
+                afterId = carIds.get(carIds.size() - 1);
+            } while (carIds.size() == chunkCars);
+            report.setRowsScanned(rows);
+
+            if (!suspects.isEmpty()) {
+                sleepQuietly(settleMs);
+            }
+            for (Long carId : suspects) {
+                int driftedDays = self.recheckCar(carId, today, repair);
+                if (driftedDays > 0) {
+                    report.setDriftedCars(report.getDriftedCars() + 1);
+                    report.setDriftedDays(report.getDriftedDays() + driftedDays);
+                    if (repair) {
+                        report.setRepairedDays(report.getRepairedDays() + driftedDays);
+                        // After the repair committed, so a reload sees it
+                        inventoryStrategy.evict(carId);
+                    }
+                }
+                throttle.acquire(1);
+            }
+
+            report.setDurationMs(System.currentTimeMillis() - startedMs);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // The car row lock keeps lock-based reservations of this car out while it is compared and fixed. Changes
+    // still queued by the write-behind strategies count as held, so they are not repaired a second time.
+    // Returns the number of days on which the ledger is wrong.
+    @Transactional
+    public int recheckCar(Long carId, LocalDate from, boolean repair) {
+        Car car = carRepository.findByIdWithLock(carId).orElse(null);
+        Map<LocalDate, Integer> expected = reconciliationRepository.expectedHolds(carId, from);
+        Map<LocalDate, Integer> actual = writeBehind.heldByDay(carId, from);
+
+        Map<SlotKey, Integer> deltas = new HashMap<>();
+        Set<LocalDate> days = new HashSet<>(expected.keySet());
+        days.addAll(actual.keySet());
+        for (LocalDate day : days) {
+            int delta = expected.getOrDefault(day, 0) - actual.getOrDefault(day, 0);
+            if (delta != 0) {
+                deltas.put(new SlotKey(carId, day), delta);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        log.warn("Ledger drift on car {} ({}): {} days, deltas {}", carId,
+                car != null ? "fleet size " + car.getCount() : "deleted", deltas.size(), deltas.values());
+        if (repair) {
+            ledgerJdbcRepository.applyDeltas(deltas);
+        }
+        return deltas.size();
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Car;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// How a booking takes and gives back car days. Selected per deployment with booking.inventory.strategy.
+public interface InventoryStrategy {
+
+    // Holds one unit of the car on every day of the range and returns the car.
+    // Throws InventoryUnavailableException when a day is sold out. Must be called inside the booking transaction.
+    Car reserve(Long carId, LocalDate startDate, LocalDate endDate);
+
+    // Group booking: unitsByCarId maps each car to the units wanted. Either every unit is held or none is.
+    // Returns the cars in ascending id order.
+    List<Car> reserveAll(Map<Long, Integer> unitsByCarId, LocalDate startDate, LocalDate endDate);
+
+    void release(Long carId, LocalDate startDate, LocalDate endDate);
+
+    // Gives back the days of many bookings at once, merged per car and day
+    void releaseAll(List<Booking> bookings);
+
+    // Drops any copy of the car's days kept outside MySQL, so the next reservation loads it from the ledger
+    // again. Called after the reconciliation repaired the car's ledger.
+    default void evict(Long carId) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.CarDailyInventory;
+import com.krishnaproject.carrentalservice.repository.CarDailyInventoryRepository;
+import com.krishnaproject.carrentalservice.repository.InventoryLedgerJdbcRepository;
+import com.krishnaproject.carrentalservice.repository.InventoryLedgerJdbcRepository.QueuedDelta;
+import com.krishnaproject.carrentalservice.repository.InventoryLedgerJdbcRepository.SlotKey;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Applies ledger changes that were already decided elsewhere (Redis, the shard engine) to MySQL in batches.
+// Changes are queued in car_inventory_queue inside the booking's transaction, so a hold is durable once the
+// booking commits even if this instance dies before the next flush. Any instance may flush; each queued
+// change is applied and deleted in one transaction.
+@Slf4j
+@Service
+public class InventoryWriteBehind {
+
+    // Day rows are updated in one order by every flusher, so two flushes cannot deadlock on them
+    private static final Comparator<SlotKey> SLOT_ORDER =
+            Comparator.comparing(SlotKey::carId).thenComparing(SlotKey::slotDate);
+
+    @Autowired
+    private InventoryLedgerJdbcRepository ledgerJdbcRepository;
+
+    @Autowired
+    private CarDailyInventoryRepository inventoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.inventory.write-behind-batch-size:1000}")
+    private int batchSize;
+
+    private TransactionTemplate flushTransaction;
+    private TransactionTemplate snapshotTransaction;
+
+    @PostConstruct
+    void init() {
+        flushTransaction = new TransactionTemplate(transactionManager);
+        // Not read-only: the replica may not have the latest flush yet
+        snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setIsolationLevel(TransactionTemplate.ISOLATION_REPEATABLE_READ);
+    }
+
+    // Joins the caller's transaction: the change is queued if and only if the booking commits
+    public void enqueue(Long carId, LocalDate startDate, LocalDate endDate, int delta) {
+        ledgerJdbcRepository.queueDelta(carId, startDate, endDate, delta);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.inventory.write-behind-ms:200}")
+    public void flush() {
+        try {
+            Integer applied;
+            do {
+                applied = flushTransaction.execute(status -> flushChunk());
+            } while (applied != null && applied == batchSize);
+        } catch (RuntimeException e) {
+            // The chunk rolled back and stays queued
+            log.error("Failed to apply queued ledger changes, retrying on next flush", e);
+        }
+    }
+
+    // Units of the car held on each day from the given one on: the ledger plus the changes still queued, read
+    // in one snapshot so a flush committing in between is neither missed nor counted twice
+    public Map<LocalDate, Integer> heldByDay(Long carId, LocalDate from) {
+        return snapshotTransaction.execute(status -> {
+            Map<LocalDate, Integer> held = new HashMap<>();
+            for (CarDailyInventory slot : inventoryRepository.findByCarIdAndSlotDateGreaterThanEqual(carId, from)) {
+                held.put(slot.getSlotDate(), slot.getReserved());
+            }
+            for (QueuedDelta queued : ledgerJdbcRepository.findQueued(carId, from)) {
+                LocalDate first = queued.startDate().isBefore(from) ? from : queued.startDate();
+                for (LocalDate day = first; !day.isAfter(queued.endDate()); day = day.plusDays(1)) {
+                    held.merge(day, queued.delta(), Integer::sum);
+                }
+            }
+            held.replaceAll((day, units) -> Math.max(units, 0));
+            return held;
+        });
+    }
+
+    private int flushChunk() {
+        List<QueuedDelta> chunk = ledgerJdbcRepository.lockQueued(batchSize);
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        // Many holds on the same car and day collapse into one row update
+        Map<SlotKey, Integer> deltas = new TreeMap<>(SLOT_ORDER);
+        for (QueuedDelta queued : chunk) {
+            for (LocalDate day = queued.startDate(); !day.isAfter(queued.endDate()); day = day.plusDays(1)) {
+                deltas.merge(new SlotKey(queued.carId(), day), queued.delta(), Integer::sum);
+            }
+        }
+
+        ledgerJdbcRepository.applyDeltas(deltas);
+        ledgerJdbcRepository.deleteQueued(chunk.stream().map(QueuedDelta::id).toList());
+        return chunk.size();
+    }
+}
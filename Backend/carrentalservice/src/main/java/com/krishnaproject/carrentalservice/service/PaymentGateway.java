@@ -0,0 +1,14 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.PaymentRequestDto;
+
+// Authorizes payments with the provider and voids them. Called from the payment executor and the recovery
+// sweep, never inside a transaction. The payment id is the reference the provider knows an authorization by.
+public interface PaymentGateway {
+
+    boolean authorize(Long paymentId, PaymentRequestDto payment);
+
+    // Releases the funds an authorization holds. Voiding a reference that was never authorized does nothing,
+    // so a void may be repeated and may be sent when the outcome of authorize is unknown.
+    void voidAuthorization(Long paymentId);
+}
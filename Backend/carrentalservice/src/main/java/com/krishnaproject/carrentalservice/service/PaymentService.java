@@ -0,0 +1,287 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.PaymentRequestDto;
+import com.krishnaproject.carrentalservice.dto.PaymentResponseDto;
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Payment;
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import com.krishnaproject.carrentalservice.enums.PaymentStatus;
+import com.krishnaproject.carrentalservice.exception.BookingStateException;
+import com.krishnaproject.carrentalservice.exception.PaymentBusyException;
+import com.krishnaproject.carrentalservice.repository.BookingArchiveJdbcRepository;
+import com.krishnaproject.carrentalservice.repository.BookingRepository;
+import com.krishnaproject.carrentalservice.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Two-phase payments: accept in a short transaction, authorize on the payment executor, then apply the
+// result in another short transaction. No request thread or DB connection waits on the gateway.
+// An authorization that arrives after the booking ended is voided, and a sweep finishes payments a crash
+// left in PROCESSING or VOIDING.
+@Slf4j
+@Service
+public class PaymentService {
+
+    private static final String RECOVERY_LOCK = "payment:recovery";
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingArchiveJdbcRepository archiveRepository;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Lazy
+    @Autowired
+    private BookingService bookingService;
+
+    // Self reference so the result is applied through the transactional proxy
+    @Lazy
+    @Autowired
+    private PaymentService self;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Value("${payment.executor.threads:16}")
+    private int executorThreads;
+
+    @Value("${payment.executor.queue-capacity:1000}")
+    private int executorQueueCapacity;
+
+    // Longer than the payment deadline and any executor backlog, so only payments nobody is working on match
+    @Value("${payment.recovery.stale-after-ms:600000}")
+    private long staleAfterMs;
+
+    @Value("${payment.recovery.batch-size:100}")
+    private int recoveryBatchSize;
+
+    private ThreadPoolExecutor paymentExecutor;
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        paymentExecutor = new ThreadPoolExecutor(executorThreads, executorThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(executorQueueCapacity),
+                task -> new Thread(task, "payment-" + threadCount.incrementAndGet()));
+    }
+
+    @PreDestroy
+    void stopExecutor() throws InterruptedException {
+        paymentExecutor.shutdown();
+        paymentExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // payments.booking_id is unique: of two concurrent submits for one booking, the second fails on insert and
+    // is answered with the payment the first one created
+    public PaymentResponseDto acceptPayment(PaymentRequestDto paymentRequest) {
+        try {
+            return self.accept(paymentRequest);
+        } catch (DataIntegrityViolationException e) {
+            return paymentRepository.findByBookingId(paymentRequest.getBookingId())
+                    .map(payment -> toResponse(payment, "Payment is already being processed"))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    @Transactional
+    public PaymentResponseDto accept(PaymentRequestDto paymentRequest) {
+        // An archived booking has ended, so it is reported as not pending rather than not found
+        Booking booking = bookingRepository.findById(paymentRequest.getBookingId())
+                .or(() -> archiveRepository.findArchived(paymentRequest.getBookingId()))
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
+
+        if (booking.getStatus() != BookingStatus.PENDING) {
+            throw new BookingStateException("Booking is not in pending state");
+        }
+
+        if (LocalDateTime.now().isAfter(booking.getPaymentDeadline())) {
+            // The expiry wheel gives the days back
+            throw new BookingStateException("Payment deadline expired");
+        }
+
+        // A booking still PENDING with a payment has that payment in flight; it is reported instead of charging twice
+        Payment inFlight = paymentRepository.findByBookingId(booking.getId()).orElse(null);
+        if (inFlight != null) {
+            return toResponse(inFlight, "Payment is already being processed");
+        }
+
+        Payment payment = new Payment();
+        payment.setBookingId(booking.getId());
+        payment.setPaymentMethod(paymentRequest.getPaymentMethod());
+        payment.setAmount(paymentRequest.getAmount());
+        payment.setStatus(PaymentStatus.PROCESSING);
+        payment = paymentRepository.save(payment);
+
+        // Exceptions thrown after commit reach the caller, so a full executor still fails the request
+        Long paymentId = payment.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(paymentId, paymentRequest);
+            }
+        });
+
+        log.info("Payment {} accepted for booking: {}", paymentId, booking.getId());
+        return toResponse(payment, "Payment accepted");
+    }
+
+    public PaymentResponseDto getPayment(Long paymentId) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+        return toResponse(payment, payment.getFailureReason());
+    }
+
+    // Moves the booking to CONFIRMED or CANCELLED; an approval for a booking that expired meanwhile is marked
+    // VOIDING for the caller to void. Runs on the payment executor, in its own transaction.
+    @Transactional
+    public PaymentStatus applyResult(Long paymentId, boolean approved) {
+        Payment payment = paymentRepository.findByIdForUpdate(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+
+        // The recovery sweep gave up on it first; its void covers this authorization too
+        if (payment.getStatus() != PaymentStatus.PROCESSING) {
+            return payment.getStatus();
+        }
+
+        if (approved && bookingService.confirmBooking(payment.getBookingId())) {
+            payment.setStatus(PaymentStatus.AUTHORIZED);
+            log.info("Payment confirmed for booking: {}", payment.getBookingId());
+        } else if (approved) {
+            payment.setStatus(PaymentStatus.VOIDING);
+            payment.setFailureReason("Booking is no longer awaiting payment");
+            log.warn("Payment {} authorized after booking {} left PENDING, voiding", paymentId, payment.getBookingId());
+        } else {
+            bookingService.cancelBooking(payment.getBookingId());
+            payment.setStatus(PaymentStatus.DECLINED);
+            payment.setFailureReason("Payment failed");
+        }
+
+        paymentRepository.save(payment);
+        return payment.getStatus();
+    }
+
+    @Transactional
+    public void markVoided(Long paymentId, String reason) {
+        Payment payment = paymentRepository.findByIdForUpdate(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+        if (payment.getStatus() == PaymentStatus.PROCESSING || payment.getStatus() == PaymentStatus.VOIDING) {
+            payment.setStatus(PaymentStatus.VOIDED);
+            payment.setFailureReason(reason);
+            paymentRepository.save(payment);
+        }
+    }
+
+    // PROCESSING past staleAfterMs means the instance authorizing it died: whether the gateway approved is
+    // unknown, so any authorization is voided. By then the booking's deadline has passed and expiry released
+    // it. VOIDING past staleAfterMs is a void that failed or was cut off, and is sent again.
+    @Scheduled(fixedDelayString = "${payment.recovery.interval-ms:60000}")
+    public void recoverStalePayments() {
+        RLock lock = redissonClient.getLock(RECOVERY_LOCK);
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        try {
+            LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfterMs, ChronoUnit.MILLIS);
+            List<Payment> stale = paymentRepository.findByStatusInAndUpdatedAtBefore(
+                    List.of(PaymentStatus.PROCESSING, PaymentStatus.VOIDING), staleBefore,
+                    PageRequest.of(0, recoveryBatchSize));
+            for (Payment payment : stale) {
+                log.warn("Recovering payment {} left in {}", payment.getId(), payment.getStatus());
+                voidAuthorization(payment.getId(), payment.getStatus() == PaymentStatus.PROCESSING
+                        ? "Payment was interrupted" : payment.getFailureReason());
+            }
+        } catch (RuntimeException e) {
+            log.error("Payment recovery failed, retrying on next run", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Nothing was sent to the gateway yet, so the payment is withdrawn and the booking stays PENDING
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void withdraw(Long paymentId) {
+        paymentRepository.deleteById(paymentId);
+    }
+
+    // A full executor turns the request away (503) instead of failing the customer's booking; they can retry
+    // until the payment deadline
+    private void submit(Long paymentId, PaymentRequestDto paymentRequest) {
+        try {
+            paymentExecutor.execute(() -> authorize(paymentId, paymentRequest));
+        } catch (RejectedExecutionException e) {
+            log.warn("Payment executor is full, withdrawing payment {}", paymentId);
+            self.withdraw(paymentId);
+            throw new PaymentBusyException("Payments are busy. Please try again.");
+        }
+    }
+
+    private void authorize(Long paymentId, PaymentRequestDto paymentRequest) {
+        boolean approved;
+        try {
+            approved = paymentGateway.authorize(paymentId, paymentRequest);
+        } catch (RuntimeException e) {
+            log.error("Gateway error for payment {}", paymentId, e);
+            approved = false;
+        }
+
+        PaymentStatus status;
+        try {
+            status = self.applyResult(paymentId, approved);
+        } catch (RuntimeException e) {
+            // Stays PROCESSING; the recovery sweep voids it
+            log.error("Failed to apply result of payment {}", paymentId, e);
+            return;
+        }
+
+        if (status == PaymentStatus.VOIDING) {
+            voidAuthorization(paymentId, "Booking is no longer awaiting payment");
+        }
+    }
+
+    // A failed void leaves the payment as it was, for the recovery sweep to send again
+    private void voidAuthorization(Long paymentId, String reason) {
+        try {
+            paymentGateway.voidAuthorization(paymentId);
+            self.markVoided(paymentId, reason);
+            log.info("Voided authorization of payment {}", paymentId);
+        } catch (RuntimeException e) {
+            log.error("Failed to void payment {}, retrying from the recovery sweep", paymentId, e);
+        }
+    }
+
+    private PaymentResponseDto toResponse(Payment payment, String message) {
+        return new PaymentResponseDto(payment.getId(), payment.getBookingId(), payment.getStatus(), message);
+    }
+}
@@ -0,0 +1,84 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.CarNotFoundException;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Redisson car lock plus a PESSIMISTIC_WRITE row lock around the ledger update
+@Service
+@ConditionalOnProperty(name = "booking.inventory.strategy", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticInventoryStrategy implements InventoryStrategy {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Override
+    public Car reserve(Long carId, LocalDate startDate, LocalDate endDate) {
+        String lockKey = "car:lock:" + carId;
+        RLock lock = redissonClient.getLock(lockKey);
+
+        try {
+            boolean isLocked = lock.tryLock(5, 10, TimeUnit.SECONDS);
+
+            if (!isLocked) {
+                throw new RuntimeException("Unable to acquire lock. Please try again.");
+            }
+
+            Car car = carRepository.findByIdWithLock(carId)
+                    .orElseThrow(() -> new CarNotFoundException("Car not found"));
+
+            inventoryLedgerService.reserve(car, startDate, endDate);
+            return car;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Booking process interrupted", e);
+        } finally {
+            // The row lock keeps the car serialized until the booking commits
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    // One FOR UPDATE statement locks every car in primary key order, the same order any other group booking
+    // uses, so groups cannot deadlock each other; single bookings only ever hold one car row
+    @Override
+    public List<Car> reserveAll(Map<Long, Integer> unitsByCarId, LocalDate startDate, LocalDate endDate) {
+        List<Car> cars = carRepository.findAllByIdWithLock(unitsByCarId.keySet());
+        if (cars.size() < unitsByCarId.size()) {
+            throw new CarNotFoundException("Car not found");
+        }
+
+        inventoryLedgerService.reserveAll(cars, unitsByCarId, startDate, endDate);
+        return cars;
+    }
+
+    // The ledger update is a single conditional statement, so no car lock is needed to give days back
+    @Override
+    public void release(Long carId, LocalDate startDate, LocalDate endDate) {
+        inventoryLedgerService.release(carId, startDate, endDate);
+    }
+
+    @Override
+    public void releaseAll(List<Booking> bookings) {
+        inventoryLedgerService.releaseAll(bookings);
+    }
+}
@@ -0,0 +1,177 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.dto.BookingEvent;
+import com.krishnaproject.carrentalservice.enums.BookingStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.api.stream.StreamMultiReadArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// One Redis stream per partition (booking:events:{n}), trimmed to about max-len entries.
+// Publishing pipelines every XADD of a relay batch in one round trip; a reader thread per instance
+// tails all partitions with a blocking XREAD and dispatches what it reads to local listeners.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "booking.events.stream", havingValue = "redis", matchIfMissing = true)
+public class RedisBookingEventStream implements BookingEventStream {
+
+    private static final String STREAM_PREFIX = "booking:events:";
+    private static final StreamMessageId START = new StreamMessageId(0, 0);
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private BookingEventDispatcher dispatcher;
+
+    @Value("${booking.events.partitions:4}")
+    private int partitions;
+
+    @Value("${booking.events.stream-max-len:100000}")
+    private int maxLen;
+
+    private volatile boolean running = true;
+    private Thread reader;
+
+    @Override
+    public void publish(List<BookingEvent> events) {
+        RBatch batch = redissonClient.createBatch();
+        for (BookingEvent event : events) {
+            String stream = STREAM_PREFIX + BookingEventStream.partitionOf(event.getCarId(), partitions);
+            batch.<String, String>getStream(stream, StringCodec.INSTANCE)
+                    .addAsync(StreamAddArgs.entries(toFields(event)).trimNonStrict().maxLen(maxLen).noLimit());
+        }
+        batch.execute();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReader() {
+        reader = new Thread(this::readLoop, "booking-event-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @PreDestroy
+    public void stopReader() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    // Starts at the tail every partition had on startup (listeners build their state from MySQL) and from then
+    // on reads after the last ID seen per partition. "$" is never passed: a partition that delivered nothing
+    // yet would skip whatever was added to it between two reads.
+    private void readLoop() {
+        Map<String, StreamMessageId> lastIds = new LinkedHashMap<>();
+        while (running && lastIds.isEmpty()) {
+            try {
+                lastIds.putAll(tailIds());
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Reading booking event stream tails failed, retrying", e);
+                sleepQuietly();
+            }
+        }
+        String first = STREAM_PREFIX + 0;
+
+        while (running) {
+            try {
+                Map<String, StreamMessageId> others = new HashMap<>(lastIds);
+                others.remove(first);
+                RStream<String, String> stream = redissonClient.getStream(first, StringCodec.INSTANCE);
+
+                Map<String, Map<StreamMessageId, Map<String, String>>> read = stream.read(
+                        StreamMultiReadArgs.greaterThan(lastIds.get(first), others).count(500).timeout(Duration.ofSeconds(5)));
+                if (read == null) {
+                    continue;
+                }
+
+                read.forEach((name, entries) -> entries.forEach((id, fields) -> {
+                    lastIds.put(name, id);
+                    dispatcher.dispatch(fromFields(fields));
+                }));
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Reading booking events failed, retrying", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    // Last ID of every partition; 0-0 for a partition that does not exist yet, so its first entry is read
+    private Map<String, StreamMessageId> tailIds() {
+        Map<String, StreamMessageId> tails = new LinkedHashMap<>();
+        for (int p = 0; p < partitions; p++) {
+            RStream<String, String> stream = redissonClient.getStream(STREAM_PREFIX + p, StringCodec.INSTANCE);
+            tails.put(stream.getName(), stream.isExists() ? stream.getInfo().getLastGeneratedId() : START);
+        }
+        return tails;
+    }
+
+    private static Map<String, String> toFields(BookingEvent event) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("eventId", event.getEventId().toString());
+        fields.put("bookingId", event.getBookingId().toString());
+        fields.put("carId", event.getCarId().toString());
+        fields.put("userId", event.getUserId().toString());
+        fields.put("status", event.getStatus().name());
+        fields.put("startDate", String.valueOf(event.getStartDate()));
+        fields.put("endDate", String.valueOf(event.getEndDate()));
+        fields.put("paymentDeadline", String.valueOf(event.getPaymentDeadline()));
+        fields.put("occurredAt", event.getOccurredAt().toString());
+        return fields;
+    }
+
+    private static BookingEvent fromFields(Map<String, String> fields) {
+        return new BookingEvent(
+                Long.valueOf(fields.get("eventId")),
+                Long.valueOf(fields.get("bookingId")),
+                Long.valueOf(fields.get("carId")),
+                Long.valueOf(fields.get("userId")),
+                BookingStatus.valueOf(fields.get("status")),
+                parseDate(fields.get("startDate")),
+                parseDate(fields.get("endDate")),
+                parseDateTime(fields.get("paymentDeadline")),
+                LocalDateTime.parse(fields.get("occurredAt")));
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value == null || value.equals("null") ? null : LocalDate.parse(value);
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        return value == null || value.equals("null") ? null : LocalDateTime.parse(value);
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.CarNotFoundException;
+import com.krishnaproject.carrentalservice.exception.InventoryUnavailableException;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Checks and takes every day of a booking in one Lua call against a per-car Redis hash (day -> units held).
+// No Redisson lock or row lock is taken; the change is queued for MySQL's ledger in the booking's transaction
+// and applied by InventoryWriteBehind.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "booking.inventory.strategy", havingValue = "redis-script")
+public class RedisScriptInventoryStrategy implements InventoryStrategy {
+
+    private static final String KEY_PREFIX = "car:days:";
+
+    // Hashes of cars nobody books expire and are loaded again from MySQL
+    private static final long IDLE_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+    // KEYS[1] = day hash, ARGV[1] = capacity, ARGV[2] = idle ttl, ARGV[3..] = days.
+    // Returns -1 when the hash is not loaded, 0 when a day is sold out, 1 when every day was taken.
+    private static final String RESERVE_SCRIPT =
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return -1 end " +
+            "local capacity = tonumber(ARGV[1]) " +
+            "for i = 3, #ARGV do " +
+            "  if tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or '0') >= capacity then return 0 end " +
+            "end " +
+            "for i = 3, #ARGV do redis.call('HINCRBY', KEYS[1], ARGV[i], 1) end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1";
+
+    // KEYS = day hashes of the cars, ARGV[1] = idle ttl, ARGV[2] = number of days n, ARGV[3..n+2] = days,
+    // then capacity, units pairs per key. Returns -k when hash k is not loaded, 0 when any car is sold out on
+    // any day, 1 when every unit was taken.
+    private static final String RESERVE_ALL_SCRIPT =
+            "local dayCount = tonumber(ARGV[2]) " +
+            "for k = 1, #KEYS do " +
+            "  if redis.call('HEXISTS', KEYS[k], '_loaded') == 0 then return -k end " +
+            "  local capacity = tonumber(ARGV[dayCount + 2 * k + 1]) " +
+            "  local units = tonumber(ARGV[dayCount + 2 * k + 2]) " +
+            "  for i = 3, dayCount + 2 do " +
+            "    if tonumber(redis.call('HGET', KEYS[k], ARGV[i]) or '0') + units > capacity then return 0 end " +
+            "  end " +
+            "end " +
+            "for k = 1, #KEYS do " +
+            "  local units = tonumber(ARGV[dayCount + 2 * k + 2]) " +
+            "  for i = 3, dayCount + 2 do redis.call('HINCRBY', KEYS[k], ARGV[i], units) end " +
+            "  redis.call('PEXPIRE', KEYS[k], ARGV[1]) " +
+            "end " +
+            "return 1";
+
+    // KEYS[1] = day hash, ARGV[1] = idle ttl, ARGV[2..] = day, units pairs
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return 0 end " +
+            "for i = 2, #ARGV, 2 do " +
+            "  local held = tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or '0') " +
+            "  redis.call('HSET', KEYS[1], ARGV[i], math.max(held - tonumber(ARGV[i + 1]), 0)) " +
+            "end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1";
+
+    // KEYS[1] = day hash, ARGV[1] = idle ttl, ARGV[2..] = day, units pairs. A hash that is already loaded wins.
+    private static final String LOAD_SCRIPT =
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 1 then return 0 end " +
+            "for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('HSET', KEYS[1], '_loaded', '1') " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1";
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private InventoryWriteBehind writeBehind;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Override
+    public Car reserve(Long carId, LocalDate startDate, LocalDate endDate) {
+        Car car = carRepository.findById(carId)
+                .orElseThrow(() -> new CarNotFoundException("Car not found"));
+
+        long result = runReserve(car, startDate, endDate);
+        if (result < 0) {
+            loadDays(carId);
+            result = runReserve(car, startDate, endDate);
+        }
+
+        if (result == 0) {
+            throw new InventoryUnavailableException("Car is not available for the selected dates");
+        }
+
+        // Queued with the booking, so it is durable exactly when the booking is; the days go back in Redis if
+        // the booking does not commit
+        writeBehind.enqueue(carId, startDate, endDate, 1);
+        afterCompletion(committed -> {
+            if (!committed) {
+                runRelease(carId, oneUnitPerDay(startDate, endDate));
+            }
+        });
+
+        return car;
+    }
+
+    // Every car of the group is checked and taken in the same Lua call
+    @Override
+    public List<Car> reserveAll(Map<Long, Integer> unitsByCarId, LocalDate startDate, LocalDate endDate) {
+        List<Car> cars = new ArrayList<>(carRepository.findAllById(unitsByCarId.keySet()));
+        if (cars.size() < unitsByCarId.size()) {
+            throw new CarNotFoundException("Car not found");
+        }
+        cars.sort(Comparator.comparing(Car::getId));
+
+        List<Object> keys = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(IDLE_TTL_MS));
+        args.add(String.valueOf(InventoryLedgerService.daysHeld(startDate, endDate)));
+        addDays(args, startDate, endDate);
+        for (Car car : cars) {
+            keys.add(KEY_PREFIX + car.getId());
+            args.add(String.valueOf(car.getCount()));
+            args.add(String.valueOf(unitsByCarId.get(car.getId())));
+        }
+
+        long result = -1;
+        // Each attempt either succeeds, fails on stock, or names one more car whose hash must be loaded
+        for (int attempt = 0; attempt <= cars.size() && result < 0; attempt++) {
+            Long outcome = script().eval(RScript.Mode.READ_WRITE, RESERVE_ALL_SCRIPT, RScript.ReturnType.INTEGER,
+                    keys, args.toArray());
+            result = outcome != null ? outcome : 0;
+            if (result < 0) {
+                loadDays(cars.get((int) -result - 1).getId());
+            }
+        }
+
+        if (result <= 0) {
+            throw new InventoryUnavailableException("Some cars are not available for the selected dates");
+        }
+
+        unitsByCarId.forEach((carId, units) -> writeBehind.enqueue(carId, startDate, endDate, units));
+        afterCompletion(committed -> unitsByCarId.forEach((carId, units) -> {
+            if (!committed) {
+                Map<String, Integer> unitsByDay = new LinkedHashMap<>();
+                oneUnitPerDay(startDate, endDate).keySet().forEach(day -> unitsByDay.put(day, units));
+                runRelease(carId, unitsByDay);
+            }
+        }));
+
+        return cars;
+    }
+
+    @Override
+    public void release(Long carId, LocalDate startDate, LocalDate endDate) {
+        writeBehind.enqueue(carId, startDate, endDate, -1);
+        afterCompletion(committed -> {
+            if (committed) {
+                runRelease(carId, oneUnitPerDay(startDate, endDate));
+            }
+        });
+    }
+
+    // One script call per car no matter how many of its bookings are in the batch
+    @Override
+    public void releaseAll(List<Booking> bookings) {
+        Map<Long, Map<String, Integer>> unitsByCar = new HashMap<>();
+        InventoryLedgerService.releaseDeltas(bookings).forEach((slot, delta) ->
+                unitsByCar.computeIfAbsent(slot.carId(), id -> new LinkedHashMap<>())
+                        .put(slot.slotDate().toString(), -delta));
+
+        unitsByCar.forEach((carId, unitsByDay) -> unitsByDay.forEach((day, units) ->
+                writeBehind.enqueue(carId, LocalDate.parse(day), LocalDate.parse(day), -units)));
+        afterCompletion(committed -> {
+            if (committed) {
+                unitsByCar.forEach(this::runRelease);
+            }
+        });
+    }
+
+    @Override
+    public void evict(Long carId) {
+        redissonClient.getKeys().delete(KEY_PREFIX + carId);
+    }
+
+    private long runReserve(Car car, LocalDate startDate, LocalDate endDate) {
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(car.getCount()));
+        args.add(String.valueOf(IDLE_TTL_MS));
+        addDays(args, startDate, endDate);
+
+        Long result = script().eval(RScript.Mode.READ_WRITE, RESERVE_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(KEY_PREFIX + car.getId()), args.toArray());
+        return result != null ? result : 0;
+    }
+
+    private void runRelease(Long carId, Map<String, Integer> unitsByDay) {
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(IDLE_TTL_MS));
+        unitsByDay.forEach((day, units) -> {
+            args.add(day);
+            args.add(String.valueOf(units));
+        });
+
+        script().eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(KEY_PREFIX + carId), args.toArray());
+    }
+
+    private void loadDays(Long carId) {
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(IDLE_TTL_MS));
+        // Includes changes still queued for the ledger, which the ledger alone would miss
+        writeBehind.heldByDay(carId, LocalDate.now()).forEach((day, units) -> {
+            args.add(day.toString());
+            args.add(String.valueOf(units));
+        });
+
+        script().eval(RScript.Mode.READ_WRITE, LOAD_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(KEY_PREFIX + carId), args.toArray());
+        log.info("Loaded inventory days of car {} into Redis", carId);
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    private static Map<String, Integer> oneUnitPerDay(LocalDate startDate, LocalDate endDate) {
+        Map<String, Integer> unitsByDay = new LinkedHashMap<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            unitsByDay.put(day.toString(), 1);
+        }
+        return unitsByDay;
+    }
+
+    private static void addDays(List<Object> args, LocalDate startDate, LocalDate endDate) {
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            args.add(day.toString());
+        }
+    }
+
+    private static void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
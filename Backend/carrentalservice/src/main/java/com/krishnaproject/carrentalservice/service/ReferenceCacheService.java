@@ -0,0 +1,89 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.config.ReadWriteRoutingDataSource;
+import com.krishnaproject.carrentalservice.dto.CacheRegionStatsDto;
+import com.krishnaproject.carrentalservice.dto.CatalogChangeEvent;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.entity.City;
+import com.krishnaproject.carrentalservice.entity.Specifications;
+import com.krishnaproject.carrentalservice.enums.CatalogEntityType;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the Hibernate second-level cache (see ehcache.xml) coherent across instances. Each instance has its
+// own heap regions and Hibernate only updates them for writes made through that instance, so every
+// CatalogChangeEvent (raised on all instances) evicts what the write may have changed. Any read-only
+// transaction that misses refills the regions, so for replica-max-lag after an eviction this instance reads
+// the primary; otherwise the lagging replica would put the old rows back until the TTL. Admin writes are rare,
+// so the primary sees that extra read load only briefly.
+@Slf4j
+@Service
+public class ReferenceCacheService {
+
+    private static final String CITY_REGION = "city";
+    private static final String SPECIFICATIONS_REGION = "specifications";
+    private static final String CAR_IMAGES_REGION = "car-images";
+    private static final String CITY_QUERY_REGION = "city-queries";
+
+    private static final String CAR_IMAGES_ROLE = Car.class.getName() + ".images";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.datasource.replica.max-lag-ms:2000}")
+    private long replicaMaxLagMs;
+
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        // Before evicting, so no reload after the eviction can read the replica
+        ReadWriteRoutingDataSource.allOnPrimaryFor(replicaMaxLagMs);
+        org.hibernate.Cache cache = sessionFactory().getCache();
+        if (event.getType() == CatalogEntityType.CITY) {
+            cache.evictEntityData(City.class, event.getId());
+            cache.evictQueryRegion(CITY_QUERY_REGION);
+        } else {
+            cache.evictCollectionData(CAR_IMAGES_ROLE, event.getId());
+            // The event names the car, not its specifications row; admin writes are rare enough to drop them all
+            cache.evictEntityData(Specifications.class);
+        }
+    }
+
+    public List<CacheRegionStatsDto> regionStatistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+        List<CacheRegionStatsDto> result = new ArrayList<>();
+        for (String region : List.of(CITY_REGION, SPECIFICATIONS_REGION, CAR_IMAGES_REGION, CITY_QUERY_REGION)) {
+            CacheRegionStatistics stats = region.equals(CITY_QUERY_REGION)
+                    ? statistics.getQueryRegionStatistics(region)
+                    : statistics.getDomainDataRegionStatistics(region);
+            if (stats != null) {
+                result.add(new CacheRegionStatsDto(region, stats.getHitCount(), stats.getMissCount(),
+                        stats.getPutCount(), stats.getElementCountInMemory()));
+            }
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.second-level-cache.stats-log-interval-ms:900000}",
+            initialDelayString = "${catalog.second-level-cache.stats-log-interval-ms:900000}")
+    public void logStatistics() {
+        for (CacheRegionStatsDto region : regionStatistics()) {
+            log.info("Second-level cache region {}: {} hits, {} misses, {} puts, {} entries",
+                    region.getRegion(), region.getHits(), region.getMisses(), region.getPuts(), region.getEntries());
+        }
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
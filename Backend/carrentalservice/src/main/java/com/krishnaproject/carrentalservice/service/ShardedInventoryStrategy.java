@@ -0,0 +1,430 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Booking;
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.CarNotFoundException;
+import com.krishnaproject.carrentalservice.exception.InventoryUnavailableException;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import com.krishnaproject.carrentalservice.util.RingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Car ids are hashed to single-threaded shards. Each shard owns the held units of its cars in memory and
+// applies reserve/release commands from its ring buffer one after another, so no lock is taken anywhere.
+// Changes are queued for MySQL's ledger in the booking's transaction and applied in batches by InventoryWriteBehind.
+// The shards are authoritative only inside this process: run a single carrentalservice instance with it.
+// A shard also counts each car's holds and releases whose booking has not finished yet. Those are not in the
+// ledger and its queue, so a car's days are only loaded, and only dropped on evict, while it has none: an
+// evicted car refuses new holds until the open ones settle, and a load waits out an open release.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "booking.inventory.strategy", havingValue = "sharded")
+public class ShardedInventoryStrategy implements InventoryStrategy {
+
+    // Reserve and Load results: a car id is returned negated when its days are not loaded into the shard yet
+    private static final long SOLD_OUT = 0;
+    private static final long RESERVED = 1;
+    // The car is waiting for its open bookings to settle before it is dropped or loaded
+    private static final long SETTLING = 2;
+
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_PARK_NS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private sealed interface Command permits Reserve, Load, Open, Settle, Prune, Evict {}
+
+    // Every car here belongs to the same shard; capacityByCarId is Car.count at the time of the request
+    private record Reserve(Map<Long, Integer> unitsByCarId, Map<Long, Integer> capacityByCarId,
+                           LocalDate startDate, LocalDate endDate, CompletableFuture<Long> result) implements Command {}
+
+    private record Load(Long carId, Map<LocalDate, Integer> heldByDay, CompletableFuture<Long> result) implements Command {}
+
+    // A release was written in a booking transaction that has not finished yet
+    private record Open(Long carId) implements Command {}
+
+    // A booking that held or released days of the car finished; unitsByDay go back to the car (empty if none)
+    private record Settle(Long carId, Map<LocalDate, Integer> unitsByDay) implements Command {}
+
+    private record Prune(LocalDate before) implements Command {}
+
+    private record Evict(Long carId) implements Command {}
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private InventoryWriteBehind writeBehind;
+
+    @Value("${booking.inventory.shards:4}")
+    private int shardCount;
+
+    @Value("${booking.inventory.shard-queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${booking.inventory.shard-timeout-ms:2000}")
+    private long timeoutMs;
+
+    private Shard[] shards;
+
+    @PostConstruct
+    public void start() {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+            shards[i].thread.start();
+        }
+        log.info("Started {} inventory shards", shardCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(timeoutMs);
+        }
+    }
+
+    @Override
+    public Car reserve(Long carId, LocalDate startDate, LocalDate endDate) {
+        Car car = carRepository.findById(carId)
+                .orElseThrow(() -> new CarNotFoundException("Car not found"));
+
+        if (reserveOnShard(shardFor(carId), List.of(car), Map.of(carId, 1), startDate, endDate) != RESERVED) {
+            throw new InventoryUnavailableException("Car is not available for the selected dates");
+        }
+
+        // Queued with the booking, so it is durable exactly when the booking is; the days go back to the shard
+        // if the booking does not commit
+        writeBehind.enqueue(carId, startDate, endDate, 1);
+        afterCompletion(committed -> submit(shardFor(carId),
+                new Settle(carId, committed ? Map.of() : unitsPerDay(startDate, endDate, 1))));
+
+        return car;
+    }
+
+    // Cars on one shard are checked and taken by one command. A group spread over several shards is taken
+    // shard by shard in index order and the shards already taken are given back if a later one is sold out.
+    @Override
+    public List<Car> reserveAll(Map<Long, Integer> unitsByCarId, LocalDate startDate, LocalDate endDate) {
+        List<Car> cars = new ArrayList<>(carRepository.findAllById(unitsByCarId.keySet()));
+        if (cars.size() < unitsByCarId.size()) {
+            throw new CarNotFoundException("Car not found");
+        }
+        cars.sort(Comparator.comparing(Car::getId));
+
+        Map<Integer, List<Car>> carsByShard = new TreeMap<>();
+        for (Car car : cars) {
+            carsByShard.computeIfAbsent(shardFor(car.getId()), index -> new ArrayList<>()).add(car);
+        }
+
+        List<Car> taken = new ArrayList<>();
+        try {
+            for (Map.Entry<Integer, List<Car>> entry : carsByShard.entrySet()) {
+                if (reserveOnShard(entry.getKey(), entry.getValue(), unitsByCarId, startDate, endDate) != RESERVED) {
+                    throw new InventoryUnavailableException("Some cars are not available for the selected dates");
+                }
+                taken.addAll(entry.getValue());
+            }
+        } catch (RuntimeException e) {
+            // Sold out, or a later shard timed out: the shards already taken give their units back
+            for (Car car : taken) {
+                Long carId = car.getId();
+                submit(shardFor(carId), new Settle(carId, unitsPerDay(startDate, endDate, unitsByCarId.get(carId))));
+            }
+            throw e;
+        }
+
+        unitsByCarId.forEach((carId, units) -> writeBehind.enqueue(carId, startDate, endDate, units));
+        afterCompletion(committed -> unitsByCarId.forEach((carId, units) -> submit(shardFor(carId),
+                new Settle(carId, committed ? Map.of() : unitsPerDay(startDate, endDate, units)))));
+
+        return cars;
+    }
+
+    @Override
+    public void release(Long carId, LocalDate startDate, LocalDate endDate) {
+        submit(shardFor(carId), new Open(carId));
+        writeBehind.enqueue(carId, startDate, endDate, -1);
+        afterCompletion(committed -> submit(shardFor(carId),
+                new Settle(carId, committed ? unitsPerDay(startDate, endDate, 1) : Map.of())));
+    }
+
+    @Override
+    public void releaseAll(List<Booking> bookings) {
+        Map<Long, Map<LocalDate, Integer>> unitsByCar = new HashMap<>();
+        InventoryLedgerService.releaseDeltas(bookings).forEach((slot, delta) ->
+                unitsByCar.computeIfAbsent(slot.carId(), id -> new TreeMap<>()).put(slot.slotDate(), -delta));
+
+        unitsByCar.keySet().forEach(carId -> submit(shardFor(carId), new Open(carId)));
+        unitsByCar.forEach((carId, unitsByDay) ->
+                unitsByDay.forEach((day, units) -> writeBehind.enqueue(carId, day, day, -units)));
+        afterCompletion(committed -> unitsByCar.forEach((carId, unitsByDay) ->
+                submit(shardFor(carId), new Settle(carId, committed ? unitsByDay : Map.of()))));
+    }
+
+    // Takes effect once the car's open bookings have settled; until then its holds are refused as busy
+    @Override
+    public void evict(Long carId) {
+        submit(shardFor(carId), new Evict(carId));
+    }
+
+    // Days before today no longer matter for availability; runs after the nightly ledger prune
+    @Scheduled(cron = "0 5 2 * * *")
+    public void pruneDays() {
+        LocalDate today = LocalDate.now();
+        for (Shard shard : shards) {
+            submit(shard.index, new Prune(today));
+        }
+    }
+
+    private long reserveOnShard(int shardIndex, List<Car> cars, Map<Long, Integer> unitsByCarId,
+                                LocalDate startDate, LocalDate endDate) {
+        Map<Long, Integer> units = new HashMap<>();
+        Map<Long, Integer> capacities = new HashMap<>();
+        for (Car car : cars) {
+            units.put(car.getId(), unitsByCarId.get(car.getId()));
+            capacities.put(car.getId(), car.getCount());
+        }
+
+        long result = -1;
+        // Each attempt either decides, or names one more car whose days must be loaded from the ledger
+        for (int attempt = 0; attempt <= cars.size() && result < 0; attempt++) {
+            result = call(shardIndex, new Reserve(units, capacities, startDate, endDate, new CompletableFuture<>()));
+            if (result < 0) {
+                loadDays(shardIndex, -result);
+            }
+        }
+        if (result == SETTLING) {
+            throw new RuntimeException("Car is busy. Please try again.");
+        }
+        return result;
+    }
+
+    // Reads the ledger on the caller's thread so the shard never waits on MySQL
+    private void loadDays(int shardIndex, Long carId) {
+        // Includes changes still queued for the ledger, which the ledger alone would miss
+        Map<LocalDate, Integer> heldByDay = writeBehind.heldByDay(carId, LocalDate.now());
+        heldByDay.values().removeIf(units -> units == 0);
+
+        if (call(shardIndex, new Load(carId, heldByDay, new CompletableFuture<>())) == SETTLING) {
+            // A release of the car is still open, so the days just read may not show it yet
+            throw new RuntimeException("Car is busy. Please try again.");
+        }
+        log.info("Loaded inventory days of car {} into shard {}", carId, shardIndex);
+    }
+
+    private long call(int shardIndex, Command command) {
+        CompletableFuture<Long> result = command instanceof Reserve reserve ? reserve.result() : ((Load) command).result();
+        submit(shardIndex, command);
+
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A shard that gets to the command later sees it cancelled and leaves the stock alone
+            if (result.cancel(false)) {
+                throw new RuntimeException("Booking engine is busy. Please try again.");
+            }
+            // Decided just as the wait ran out; the units are taken, so the answer must not be dropped
+            return result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Booking process interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Booking engine failed", e.getCause());
+        }
+    }
+
+    private void submit(int shardIndex, Command command) {
+        Shard shard = shards[shardIndex];
+        while (!shard.commands.offer(command)) {
+            // Reserves are pushed back to the client; giving units back must not be lost
+            if (command instanceof Reserve || command instanceof Load) {
+                throw new RuntimeException("Booking engine is busy. Please try again.");
+            }
+            LockSupport.unpark(shard.thread);
+            LockSupport.parkNanos(IDLE_PARK_NS);
+        }
+        LockSupport.unpark(shard.thread);
+    }
+
+    private int shardFor(Long carId) {
+        return Math.floorMod(Long.hashCode(carId * 0x9E3779B97F4A7C15L), shards.length);
+    }
+
+    private static Map<LocalDate, Integer> unitsPerDay(LocalDate startDate, LocalDate endDate, int units) {
+        Map<LocalDate, Integer> unitsByDay = new TreeMap<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            unitsByDay.put(day, units);
+        }
+        return unitsByDay;
+    }
+
+    private static void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    // Only the shard's own thread touches heldByCar, open and evicting
+    private static final class Shard implements Runnable {
+
+        private final int index;
+        private final RingBuffer<Command> commands;
+        private final Thread thread;
+        private final Map<Long, Map<LocalDate, Integer>> heldByCar = new HashMap<>();
+        // Holds and releases per car whose booking has not finished
+        private final Map<Long, Integer> open = new HashMap<>();
+        // Cars to drop once they have nothing open
+        private final Set<Long> evicting = new HashSet<>();
+
+        private volatile boolean running = true;
+
+        private Shard(int index, int queueCapacity) {
+            this.index = index;
+            this.commands = new RingBuffer<>(queueCapacity);
+            this.thread = new Thread(this, "inventory-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running || !commands.isEmpty()) {
+                if (commands.drain(this::apply, DRAIN_BATCH) == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NS);
+                }
+            }
+        }
+
+        private void apply(Command command) {
+            try {
+                if (command instanceof Reserve reserve) {
+                    reserve(reserve);
+                } else if (command instanceof Load load) {
+                    load(load);
+                } else if (command instanceof Open opened) {
+                    open.merge(opened.carId(), 1, Integer::sum);
+                } else if (command instanceof Settle settle) {
+                    settle(settle);
+                } else if (command instanceof Prune prune) {
+                    heldByCar.values().forEach(days -> days.keySet().removeIf(day -> day.isBefore(prune.before())));
+                } else if (command instanceof Evict evict) {
+                    evicting.add(evict.carId());
+                    dropIfSettled(evict.carId());
+                }
+            } catch (RuntimeException e) {
+                log.error("Inventory shard {} failed to apply {}", index, command, e);
+                if (command instanceof Reserve reserve) {
+                    reserve.result().completeExceptionally(e);
+                } else if (command instanceof Load load) {
+                    load.result().completeExceptionally(e);
+                }
+            }
+        }
+
+        private void reserve(Reserve reserve) {
+            if (reserve.result().isDone()) {
+                return;
+            }
+
+            for (Long carId : reserve.unitsByCarId().keySet()) {
+                if (evicting.contains(carId)) {
+                    reserve.result().complete(SETTLING);
+                    return;
+                }
+                if (!heldByCar.containsKey(carId)) {
+                    reserve.result().complete(-carId);
+                    return;
+                }
+            }
+
+            for (Map.Entry<Long, Integer> entry : reserve.unitsByCarId().entrySet()) {
+                Map<LocalDate, Integer> days = heldByCar.get(entry.getKey());
+                int capacity = reserve.capacityByCarId().get(entry.getKey());
+                for (LocalDate day = reserve.startDate(); !day.isAfter(reserve.endDate()); day = day.plusDays(1)) {
+                    if (days.getOrDefault(day, 0) + entry.getValue() > capacity) {
+                        reserve.result().complete(SOLD_OUT);
+                        return;
+                    }
+                }
+            }
+
+            reserve.unitsByCarId().forEach((carId, units) -> adjust(carId, reserve.startDate(), reserve.endDate(), units));
+
+            // The caller gave up while the command was queued: undo instead of leaking the units
+            if (!reserve.result().complete(RESERVED)) {
+                reserve.unitsByCarId().forEach((carId, units) -> adjust(carId, reserve.startDate(), reserve.endDate(), -units));
+                return;
+            }
+            reserve.unitsByCarId().keySet().forEach(carId -> open.merge(carId, 1, Integer::sum));
+        }
+
+        private void load(Load load) {
+            if (heldByCar.containsKey(load.carId())) {
+                load.result().complete(RESERVED);
+            } else if (open.containsKey(load.carId())) {
+                load.result().complete(SETTLING);
+            } else {
+                heldByCar.put(load.carId(), new HashMap<>(load.heldByDay()));
+                load.result().complete(RESERVED);
+            }
+        }
+
+        // Days of a car that is not loaded are not tracked here; the ledger still gets the release
+        private void settle(Settle settle) {
+            open.computeIfPresent(settle.carId(), (carId, count) -> count > 1 ? count - 1 : null);
+            Map<LocalDate, Integer> days = heldByCar.get(settle.carId());
+            if (days != null) {
+                settle.unitsByDay().forEach((day, units) ->
+                        days.computeIfPresent(day, (d, held) -> held > units ? held - units : null));
+            }
+            dropIfSettled(settle.carId());
+        }
+
+        private void dropIfSettled(Long carId) {
+            if (!open.containsKey(carId) && evicting.remove(carId)) {
+                heldByCar.remove(carId);
+            }
+        }
+
+        private void adjust(Long carId, LocalDate startDate, LocalDate endDate, int units) {
+            Map<LocalDate, Integer> days = heldByCar.get(carId);
+            for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                days.merge(day, units, (held, delta) -> held + delta > 0 ? held + delta : null);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.krishnaproject.carrentalservice.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Incremental RFC 4180 reader: hands out one record at a time, so an upload of any size is parsed with one
+// record in memory. Quoted fields may contain commas, doubled quotes and line breaks; CRLF and LF both end
+// a record and blank lines are skipped. Reads through its own buffer rather than per-char Reader calls.
+public class CsvReader {
+
+    private final Reader in;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+
+    private int line = 1;
+    private int recordLine;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Line the last record returned by next() started on (1-based)
+    public int recordLine() {
+        return recordLine;
+    }
+
+    // Fields of the next record, or null at the end of the input
+    public List<String> next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldStart = true;
+
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    fields.add(field.toString());
+                    break;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStart = true;
+                    c = read();
+                    continue;
+                } else if (c == '"' && fieldStart) {
+                    quoted = true;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                fieldStart = false;
+                c = read();
+            }
+
+            if (fields.size() > 1 || !fields.get(0).isEmpty()) {
+                return fields;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,287 @@
+package com.krishnaproject.carrentalservice.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory faceted index. Every document gets a dense slot; each facet value keeps a bitmap of the slots
+// that have it, and prices are kept as one array sorted by price with a parallel array of slots.
+// Filtering is bitmap AND/OR, a price range is one scan of the per-slot prices, and sorting by price walks
+// the sorted array. Updates change one document in place (bits flipped, one array insert/remove).
+public class FacetIndex<T> {
+
+    public record Result<T>(int total, List<T> items, Map<String, Map<String, Integer>> facets) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<T> docs = new ArrayList<>();
+    private final List<Map<String, String>> docFacets = new ArrayList<>();
+    private final Map<Long, Integer> slotByKey = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet freeSlots = new BitSet();
+
+    // facet -> value -> slots
+    private final Map<String, Map<String, BitSet>> bitmaps = new LinkedHashMap<>();
+
+    private double[] sortedPrices = new double[16];
+    private int[] sortedSlots = new int[16];
+    private double[] priceBySlot = new double[16];
+    private int priced;
+
+    // Price-range bitmaps of recent queries ("min:max"); a slider UI repeats the same few ranges.
+    // Cleared on every write, and read-only once published.
+    private static final int MAX_CACHED_RANGES = 64;
+    private final Map<String, BitSet> rangeCache = new ConcurrentHashMap<>();
+
+    public FacetIndex(List<String> facetNames) {
+        for (String facet : facetNames) {
+            bitmaps.put(facet, new TreeMap<>());
+        }
+    }
+
+    // facetValues maps facet name to the document's value; missing or null values are not indexed
+    public void upsert(long key, T doc, Map<String, String> facetValues, double price) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+
+            int slot = freeSlots.isEmpty() ? docs.size() : freeSlots.nextSetBit(0);
+            if (slot == docs.size()) {
+                docs.add(doc);
+                docFacets.add(facetValues);
+            } else {
+                freeSlots.clear(slot);
+                docs.set(slot, doc);
+                docFacets.set(slot, facetValues);
+            }
+            slotByKey.put(key, slot);
+            live.set(slot);
+
+            facetValues.forEach((facet, value) -> {
+                Map<String, BitSet> values = bitmaps.get(facet);
+                if (values != null && value != null) {
+                    values.computeIfAbsent(value, v -> new BitSet()).set(slot);
+                }
+            });
+            insertPrice(slot, price);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // filters: facet -> accepted values (OR within a facet, AND across facets). Facet counts for a facet
+    // apply every filter except that facet's own, so the counts show what choosing another value would give.
+    public Result<T> search(Map<String, Set<String>> filters, Double minPrice, Double maxPrice,
+                            boolean descending, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (minPrice != null || maxPrice != null) {
+                base.and(cachedPriceRange(minPrice, maxPrice));
+            }
+
+            Map<String, BitSet> facetFilters = new HashMap<>();
+            filters.forEach((facet, accepted) -> {
+                Map<String, BitSet> values = bitmaps.get(facet);
+                if (values == null || accepted == null || accepted.isEmpty()) {
+                    return;
+                }
+                BitSet any = new BitSet();
+                for (String value : accepted) {
+                    BitSet slots = values.get(value);
+                    if (slots != null) {
+                        any.or(slots);
+                    }
+                }
+                facetFilters.put(facet, any);
+            });
+
+            BitSet matches = (BitSet) base.clone();
+            facetFilters.values().forEach(matches::and);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            bitmaps.forEach((facet, values) -> {
+                BitSet others = (BitSet) base.clone();
+                facetFilters.forEach((otherFacet, slots) -> {
+                    if (!otherFacet.equals(facet)) {
+                        others.and(slots);
+                    }
+                });
+
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                values.forEach((value, slots) -> {
+                    BitSet both = (BitSet) slots.clone();
+                    both.and(others);
+                    int count = both.cardinality();
+                    if (count > 0) {
+                        counts.put(value, count);
+                    }
+                });
+                facets.put(facet, counts);
+            });
+
+            // Only the positions inside the price range can match
+            int from = minPrice == null ? 0 : lowerBound(minPrice);
+            int to = maxPrice == null ? priced : upperBound(maxPrice);
+            List<T> items = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+            int skipped = 0;
+            for (int i = from; i < to && items.size() < limit; i++) {
+                int slot = sortedSlots[descending ? from + to - 1 - i : i];
+                if (matches.get(slot)) {
+                    if (skipped < offset) {
+                        skipped++;
+                    } else {
+                        items.add(docs.get(slot));
+                    }
+                }
+            }
+
+            return new Result<>(matches.cardinality(), items, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(long key) {
+        rangeCache.clear();
+        Integer slot = slotByKey.remove(key);
+        if (slot == null) {
+            return;
+        }
+
+        docFacets.get(slot).forEach((facet, value) -> {
+            Map<String, BitSet> values = bitmaps.get(facet);
+            if (values != null && value != null) {
+                BitSet slots = values.get(value);
+                if (slots != null) {
+                    slots.clear(slot);
+                    if (slots.isEmpty()) {
+                        values.remove(value);
+                    }
+                }
+            }
+        });
+        removePrice(slot);
+
+        live.clear(slot);
+        freeSlots.set(slot);
+        docs.set(slot, null);
+        docFacets.set(slot, Map.of());
+    }
+
+    private BitSet cachedPriceRange(Double minPrice, Double maxPrice) {
+        String key = minPrice + ":" + maxPrice;
+        BitSet range = rangeCache.get(key);
+        if (range == null) {
+            range = priceRange(minPrice, maxPrice);
+            if (rangeCache.size() >= MAX_CACHED_RANGES) {
+                rangeCache.clear();
+            }
+            rangeCache.put(key, range);
+        }
+        return range;
+    }
+
+    // Builds the words directly from a sequential scan of priceBySlot. Prices are in random slot order, so a
+    // per-slot branch would mispredict about half the time; the comparison is folded into the word instead.
+    // Freed slots are dropped by the caller's AND with the live set.
+    private BitSet priceRange(Double minPrice, Double maxPrice) {
+        double min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+        double max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+
+        int slots = docs.size();
+        long[] words = new long[(slots + 63) >>> 6];
+        for (int slot = 0; slot < slots; slot++) {
+            double price = priceBySlot[slot];
+            long inRange = (price >= min ? 1L : 0L) & (price <= max ? 1L : 0L);
+            words[slot >>> 6] |= inRange << slot;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private void insertPrice(int slot, double price) {
+        if (priced == sortedPrices.length) {
+            sortedPrices = Arrays.copyOf(sortedPrices, priced * 2);
+            sortedSlots = Arrays.copyOf(sortedSlots, priced * 2);
+        }
+        if (slot >= priceBySlot.length) {
+            priceBySlot = Arrays.copyOf(priceBySlot, Math.max(slot + 1, priceBySlot.length * 2));
+        }
+
+        int at = upperBound(price);
+        System.arraycopy(sortedPrices, at, sortedPrices, at + 1, priced - at);
+        System.arraycopy(sortedSlots, at, sortedSlots, at + 1, priced - at);
+        sortedPrices[at] = price;
+        sortedSlots[at] = slot;
+        priceBySlot[slot] = price;
+        priced++;
+    }
+
+    private void removePrice(int slot) {
+        double price = priceBySlot[slot];
+        for (int i = lowerBound(price); i < priced && sortedPrices[i] == price; i++) {
+            if (sortedSlots[i] == slot) {
+                System.arraycopy(sortedPrices, i + 1, sortedPrices, i, priced - i - 1);
+                System.arraycopy(sortedSlots, i + 1, sortedSlots, i, priced - i - 1);
+                priced--;
+                return;
+            }
+        }
+    }
+
+    // First position whose price is >= price
+    private int lowerBound(double price) {
+        int low = 0;
+        int high = priced;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First position whose price is > price
+    private int upperBound(double price) {
+        int low = 0;
+        int high = priced;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
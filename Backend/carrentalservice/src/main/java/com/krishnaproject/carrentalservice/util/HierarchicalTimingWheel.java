@@ -0,0 +1,123 @@
+package com.krishnaproject.carrentalservice.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hierarchical timing wheel: each level has wheelSize slots of tickMs. Deadlines beyond a level's span go
+// to a coarser overflow level and cascade down once time reaches their slot, so scheduling and expiring
+// cost O(1) per entry no matter how many entries are waiting. Entries fire on the first tick at or after
+// their deadline.
+public class HierarchicalTimingWheel<T> {
+
+    private record Entry<T>(T value, long fireAtMs) {}
+
+    private static final class Bucket<T> {
+        private long expirationMs = -1;
+        private List<Entry<T>> entries = new ArrayList<>();
+    }
+
+    private static final class Level<T> {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long intervalMs;
+        private final List<Bucket<T>> buckets;
+        private long currentTimeMs;
+        private Level<T> overflow;
+
+        private Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.intervalMs = tickMs * wheelSize;
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new Bucket<>());
+            }
+            this.currentTimeMs = startMs - (startMs % tickMs);
+        }
+
+        private Bucket<T> bucketAt(long timeMs) {
+            return buckets.get((int) ((timeMs / tickMs) % wheelSize));
+        }
+    }
+
+    private final Level<T> root;
+    private final List<T> due = new ArrayList<>();
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.root = new Level<>(tickMs, wheelSize, startMs);
+    }
+
+    public synchronized void schedule(T value, long deadlineMs) {
+        // Round up to the next tick so an entry never fires before its deadline
+        Entry<T> entry = new Entry<>(value, deadlineMs + root.tickMs - 1);
+        if (!add(root, entry)) {
+            due.add(value);
+        }
+        size++;
+    }
+
+    // Moves the wheel to nowMs one tick at a time and returns every value whose deadline has passed
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>(due);
+        due.clear();
+
+        while (root.currentTimeMs + root.tickMs <= nowMs) {
+            long tickTimeMs = root.currentTimeMs + root.tickMs;
+            advanceClock(root, tickTimeMs);
+
+            for (Level<T> level = root; level != null; level = level.overflow) {
+                Bucket<T> bucket = level.bucketAt(tickTimeMs);
+                if (bucket.expirationMs < 0 || bucket.expirationMs > tickTimeMs) {
+                    continue;
+                }
+
+                List<Entry<T>> entries = bucket.entries;
+                bucket.entries = new ArrayList<>();
+                bucket.expirationMs = -1;
+
+                // Re-adding either expires the entry or drops it into a finer level
+                for (Entry<T> entry : entries) {
+                    if (!add(root, entry)) {
+                        expired.add(entry.value());
+                    }
+                }
+            }
+        }
+
+        size -= expired.size();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private boolean add(Level<T> level, Entry<T> entry) {
+        if (entry.fireAtMs() < level.currentTimeMs + level.tickMs) {
+            return false;
+        }
+
+        if (entry.fireAtMs() < level.currentTimeMs + level.intervalMs) {
+            long slot = entry.fireAtMs() / level.tickMs;
+            Bucket<T> bucket = level.buckets.get((int) (slot % level.wheelSize));
+            bucket.entries.add(entry);
+            bucket.expirationMs = slot * level.tickMs;
+            return true;
+        }
+
+        if (level.overflow == null) {
+            level.overflow = new Level<>(level.intervalMs, level.wheelSize, level.currentTimeMs);
+        }
+        return add(level.overflow, entry);
+    }
+
+    private void advanceClock(Level<T> level, long timeMs) {
+        if (timeMs >= level.currentTimeMs + level.tickMs) {
+            level.currentTimeMs = timeMs - (timeMs % level.tickMs);
+            if (level.overflow != null) {
+                advanceClock(level.overflow, level.currentTimeMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.krishnaproject.carrentalservice.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Immutable prefix index for autocomplete, ranked once when it is built; changes mean building a new one.
+// Short prefixes (up to PRECOMPUTED_DEPTH characters) match thousands of keys, so their best maxResults
+// items are precomputed. Longer prefixes binary-search one sorted array of keys and rank the few keys in
+// the matching range. A node-per-character trie answers the same queries but needs about 1.2 KB per item
+// (60 MB for 50k cities); this layout needs the keys plus one int per key.
+// Keys are matched lowercase with whitespace collapsed.
+public class PrefixIndex<T> {
+
+    private static final int PRECOMPUTED_DEPTH = 3;
+
+    // Items in rank order: an item's position is its rank
+    private final List<T> items;
+
+    // Every (key, item) pair, sorted by key
+    private final String[] keys;
+    private final int[] keyItems;
+
+    private final Map<String, int[]> topByShortPrefix = new HashMap<>();
+    private final int maxResults;
+
+    // keys: every string the item should be found by (a name, each word of it, a code ...)
+    public PrefixIndex(List<T> items, Function<T, List<String>> itemKeys, Comparator<T> rank, int maxResults) {
+        this.items = new ArrayList<>(items);
+        this.items.sort(rank);
+        this.maxResults = maxResults;
+
+        List<String> allKeys = new ArrayList<>();
+        List<Integer> allItems = new ArrayList<>();
+        Map<String, int[]> shortPrefixes = new HashMap<>();
+        Map<String, Integer> shortPrefixSizes = new HashMap<>();
+
+        for (int item = 0; item < this.items.size(); item++) {
+            Set<String> normalized = new LinkedHashSet<>();
+            for (String key : itemKeys.apply(this.items.get(item))) {
+                if (key != null) {
+                    normalized.add(normalize(key));
+                }
+            }
+
+            Set<String> prefixes = new LinkedHashSet<>();
+            for (String key : normalized) {
+                allKeys.add(key);
+                allItems.add(item);
+                for (int length = 0; length <= Math.min(PRECOMPUTED_DEPTH, key.length()); length++) {
+                    prefixes.add(key.substring(0, length));
+                }
+            }
+
+            // Items are visited in rank order, so the first maxResults per prefix are its best ones
+            for (String prefix : prefixes) {
+                int size = shortPrefixSizes.getOrDefault(prefix, 0);
+                if (size < maxResults) {
+                    int[] top = shortPrefixes.computeIfAbsent(prefix, p -> new int[maxResults]);
+                    top[size] = item;
+                    shortPrefixSizes.put(prefix, size + 1);
+                }
+            }
+        }
+        shortPrefixes.forEach((prefix, top) ->
+                topByShortPrefix.put(prefix, Arrays.copyOf(top, shortPrefixSizes.get(prefix))));
+
+        Integer[] order = new Integer[allKeys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(allKeys::get));
+        keys = new String[order.length];
+        keyItems = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = allKeys.get(order[i]);
+            keyItems[i] = allItems.get(order[i]);
+        }
+    }
+
+    // Hand-rolled rather than a regex: it runs for every key at build time and on every keystroke
+    public static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    // Best matches for the prefix in rank order; an empty prefix returns the best items overall
+    public List<T> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        int count = Math.min(limit, maxResults);
+
+        int[] ranks;
+        if (key.length() <= PRECOMPUTED_DEPTH) {
+            ranks = topByShortPrefix.getOrDefault(key, new int[0]);
+        } else {
+            ranks = rangeRanks(key);
+        }
+
+        List<T> result = new ArrayList<>(Math.min(count, ranks.length));
+        for (int i = 0; i < ranks.length && result.size() < count; i++) {
+            result.add(items.get(ranks[i]));
+        }
+        return result;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public int keyCount() {
+        return keys.length;
+    }
+
+    // Distinct items of every key starting with prefix, best first
+    private int[] rangeRanks(String prefix) {
+        int from = lowerBound(prefix);
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(prefix)) {
+            to++;
+        }
+
+        int[] ranks = Arrays.copyOfRange(keyItems, from, to);
+        Arrays.sort(ranks);
+        int distinct = 0;
+        for (int i = 0; i < ranks.length; i++) {
+            if (i == 0 || ranks[i] != ranks[i - 1]) {
+                ranks[distinct++] = ranks[i];
+            }
+        }
+        return Arrays.copyOf(ranks, Math.min(distinct, maxResults));
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,87 @@
+package com.krishnaproject.carrentalservice.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Bounded many-producer, single-consumer queue over a preallocated array. Each slot carries a sequence
+// number, so producers claim a slot with one CAS and the consumer never takes a lock.
+// offer returns false when the buffer is full instead of blocking the caller.
+public class RingBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only the consumer thread moves the head
+    private long head;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(T value) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, value);
+                    // Publishing the sequence makes the value visible to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // The consumer has not freed this slot from the previous lap yet
+                return false;
+            }
+        }
+    }
+
+    // Consumer thread only
+    public T poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+
+        T value = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return value;
+    }
+
+    // Consumer thread only; hands up to max values to the consumer and returns how many there were
+    public int drain(Consumer<T> consumer, int max) {
+        int drained = 0;
+        T value;
+        while (drained < max && (value = poll()) != null) {
+            consumer.accept(value);
+            drained++;
+        }
+        return drained;
+    }
+
+    // Consumer thread only
+    public boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
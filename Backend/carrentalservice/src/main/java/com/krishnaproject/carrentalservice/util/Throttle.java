@@ -0,0 +1,36 @@
+package com.krishnaproject.carrentalservice.util;
+
+import java.util.concurrent.TimeUnit;
+
+// Paces a single-threaded loop to at most permitsPerSecond: acquire sleeps whenever the caller gets ahead
+// of the allowed rate. A rate of zero or less disables pacing.
+public class Throttle {
+
+    private final double nanosPerPermit;
+    private final long startedNs = System.nanoTime();
+    private long acquired;
+
+    public Throttle(int permitsPerSecond) {
+        this.nanosPerPermit = permitsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / (double) permitsPerSecond : 0;
+    }
+
+    public void acquire(int permits) {
+        acquired += permits;
+        if (nanosPerPermit == 0) {
+            return;
+        }
+
+        long aheadNs = startedNs + (long) (acquired * nanosPerPermit) - System.nanoTime();
+        if (aheadNs > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(aheadNs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public long acquired() {
+        return acquired;
+    }
+}
@@ -0,0 +1,105 @@
+package com.krishnaproject.carrentalservice.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+// Bounded in-process cache: least recently used entries are evicted past maxEntries and entries
+// older than ttlMs are treated as missing. Keeps hit/miss/eviction counters for metrics.
+public class TtlLruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtMs) {}
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public TtlLruCache(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlLruCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        if (entry.expiresAtMs() < System.currentTimeMillis()) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMs));
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void removeIf(Predicate<K> keyFilter) {
+        Iterator<K> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keyFilter.test(keys.next())) {
+                keys.remove();
+            }
+        }
+    }
+
+    // Removes the entries whose key and value match, expired ones included; returns how many were removed
+    public synchronized int removeEntriesIf(BiPredicate<K, V> entryFilter) {
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (entryFilter.test(entry.getKey(), entry.getValue().value())) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+}
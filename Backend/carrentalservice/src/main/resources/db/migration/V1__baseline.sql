@@ -0,0 +1,66 @@
+-- The schema as Hibernate (ddl-auto=update) created it for the entities that existed before migrations took
+-- over. Databases that already have these tables are baselined at version 1 (spring.flyway.baseline-on-migrate)
+-- and skip this script; every table added since is created by a later migration.
+
+create table cities (
+    id bigint not null auto_increment,
+    pin_code bigint,
+    city_name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table specifications (
+    cc integer not null,
+    seating_capacity integer not null,
+    id bigint not null auto_increment,
+    engine varchar(255),
+    fuel_type varchar(255),
+    transmission varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table cars (
+    count integer not null,
+    price_per_day float(53) not null,
+    city_id bigint not null,
+    id bigint not null auto_increment,
+    specifications_id bigint,
+    details varchar(1000),
+    brand varchar(255),
+    car_name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table car_images (
+    car_id bigint not null,
+    image_url varchar(255)
+) engine=InnoDB;
+
+create table bookings (
+    end_date date,
+    start_date date,
+    total_price float(53),
+    car_id bigint not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    payment_deadline datetime(6),
+    updated_at datetime(6),
+    user_id bigint not null,
+    status enum ('CANCELLED','COMPLETED','CONFIRMED','EXPIRED','PENDING'),
+    primary key (id)
+) engine=InnoDB;
+
+alter table cars
+    add constraint UKgiq3787ceiuain8cy9g7k1ml6 unique (specifications_id);
+
+alter table bookings
+    add constraint FKj1y19nc7wf0rdp24pyhomn7ck foreign key (car_id) references cars (id);
+
+alter table car_images
+    add constraint FKet593krc5137jxdk5cxdah2vd foreign key (car_id) references cars (id);
+
+alter table cars
+    add constraint FK7f7dyfat8eyd7n1vg7ka74ayv foreign key (city_id) references cities (id);
+
+alter table cars
+    add constraint FKlpby45ayij3xao8gc1c90b7be foreign key (specifications_id) references specifications (id);
@@ -0,0 +1,57 @@
+-- Tables added after the baseline: the per-day inventory ledger, the booking outbox, payments and the catalog
+-- version log. A database that ran these features under ddl-auto=update already has them (with the same
+-- constraint and index names, which come from the entities), so every statement is a no-op there. Keys are
+-- declared inline because MySQL has no "create index if not exists".
+
+create table if not exists car_daily_inventory (
+    reserved integer not null,
+    slot_date date not null,
+    car_id bigint not null,
+    id bigint not null auto_increment,
+    version bigint not null default 0,
+    primary key (id),
+    constraint uk_car_daily_inventory_car_day unique (car_id, slot_date)
+) engine=InnoDB;
+
+create table if not exists booking_outbox (
+    end_date date,
+    start_date date,
+    booking_id bigint not null,
+    car_id bigint not null,
+    id bigint not null auto_increment,
+    occurred_at datetime(6) not null,
+    payment_deadline datetime(6),
+    user_id bigint not null,
+    status enum ('CANCELLED','COMPLETED','CONFIRMED','EXPIRED','PENDING') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists payments (
+    amount float(53),
+    booking_id bigint not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    failure_reason varchar(255),
+    payment_method varchar(255),
+    status enum ('AUTHORIZED','DECLINED','PROCESSING'),
+    primary key (id),
+    index idx_payments_booking (booking_id)
+) engine=InnoDB;
+
+create table if not exists catalog_version (
+    id bigint not null,
+    pruned_through bigint not null,
+    version bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists catalog_changes (
+    changed_at datetime(6) not null,
+    entity_id bigint not null,
+    id bigint not null auto_increment,
+    version bigint not null,
+    entity_type enum ('CAR','CITY') not null,
+    primary key (id),
+    index idx_catalog_changes_version (version)
+) engine=InnoDB;
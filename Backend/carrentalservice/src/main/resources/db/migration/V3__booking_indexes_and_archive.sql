@@ -0,0 +1,35 @@
+-- Indexes for the booking queries that scanned the table:
+--   expiry sweep and the expiry wheel's startup load   status = 'PENDING' [AND payment_deadline < ?]
+--   nightly completion                                 status = 'CONFIRMED' AND end_date < ?
+--   archiver                                           status = ? AND updated_at < ? ORDER BY updated_at
+--   user history                                       user_id = ? AND id > ? ORDER BY id
+create index idx_bookings_status_deadline on bookings (status, payment_deadline);
+create index idx_bookings_status_end_date on bookings (status, end_date);
+create index idx_bookings_status_updated on bookings (status, updated_at);
+create index idx_bookings_user on bookings (user_id, id);
+
+-- Finished bookings moved out of bookings by the archiver (BookingArchiveService), one partition per month of
+-- created_at. The archiver splits p_future into monthly partitions before it moves rows into them, so a month
+-- can later be dropped as a whole; when it adds the first month, p_min is bounded at that month's start and
+-- from then on holds every older row. bookings itself stays unpartitioned because InnoDB does not allow
+-- foreign keys on partitioned tables and bookings references cars; for the same reason the archive has no
+-- foreign key to cars. created_at has to be part of the primary key.
+create table bookings_archive (
+    id bigint not null,
+    car_id bigint not null,
+    user_id bigint not null,
+    start_date date,
+    end_date date,
+    total_price float(53),
+    status varchar(20) not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    payment_deadline datetime(6),
+    archived_at datetime(6) not null,
+    primary key (id, created_at),
+    key idx_bookings_archive_user (user_id, id)
+) engine=InnoDB
+partition by range columns (created_at) (
+    partition p_min values less than ('1970-01-01 00:00:00'),
+    partition p_future values less than (maxvalue)
+);
@@ -0,0 +1,36 @@
+-- Fills the inventory ledger from the bookings that hold cars. Bookings made before the ledger existed are not
+-- in it, so without this their days would look free. Recomputes every future day rather than adding to what
+-- is there: a database that already ran the ledger under ddl-auto=update ends up with the same counts.
+-- Past days are left out; availability never reads them and the nightly job prunes them.
+
+-- One recursion level per held day; the default limit of 1000 would fail on longer bookings
+set session cte_max_recursion_depth = 100000;
+
+insert into car_daily_inventory (car_id, slot_date, reserved)
+select car_id, slot_date, reserved from (
+    with recursive held (car_id, slot_date, end_date) as (
+        select car_id, greatest(start_date, curdate()), end_date
+        from bookings
+        where status in ('PENDING', 'CONFIRMED') and end_date >= curdate()
+        union all
+        select car_id, slot_date + interval 1 day, end_date
+        from held
+        where slot_date < end_date
+    )
+    select car_id, slot_date, count(*) as reserved
+    from held
+    group by car_id, slot_date
+) held_days
+on duplicate key update reserved = values(reserved), version = version + 1;
+
+-- Future days the ledger counts but no active booking covers
+update car_daily_inventory i
+set i.reserved = 0, i.version = i.version + 1
+where i.slot_date >= curdate()
+  and i.reserved <> 0
+  and not exists (
+      select 1 from bookings b
+      where b.car_id = i.car_id
+        and b.status in ('PENDING', 'CONFIRMED')
+        and i.slot_date between b.start_date and b.end_date
+  );
@@ -0,0 +1,13 @@
+-- Ledger changes decided by the redis-script and sharded strategies, written in the booking's transaction and
+-- applied to car_daily_inventory by InventoryWriteBehind. A change is deleted in the same transaction that
+-- applies it, so a crash on either side neither loses nor repeats it.
+create table car_inventory_queue (
+    id bigint not null auto_increment,
+    car_id bigint not null,
+    start_date date not null,
+    end_date date not null,
+    delta integer not null,
+    queued_at datetime(6) not null,
+    primary key (id),
+    key idx_car_inventory_queue_car (car_id, end_date)
+) engine=InnoDB;
@@ -0,0 +1,5 @@
+-- One payment per booking, so two concurrent submits cannot both reach the gateway. The unique key also
+-- serves the lookups by booking that idx_payments_booking was for.
+alter table payments
+    drop index idx_payments_booking,
+    add constraint uk_payments_booking unique (booking_id);
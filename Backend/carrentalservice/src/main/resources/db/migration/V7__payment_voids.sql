@@ -0,0 +1,5 @@
+-- Approvals that arrive after the booking ended are voided (VOIDING, then VOIDED), and the recovery sweep
+-- looks up payments stuck in PROCESSING or VOIDING by status and age.
+alter table payments
+    modify status enum ('AUTHORIZED','DECLINED','PROCESSING','VOIDED','VOIDING'),
+    add index idx_payments_status_updated (status, updated_at);
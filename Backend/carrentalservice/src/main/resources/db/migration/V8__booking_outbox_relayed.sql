@@ -0,0 +1,10 @@
+-- Highest outbox id the relay has published and deleted, raised in the same transaction as the delete. Read
+-- together with the ids still in booking_outbox, it tells which booking events a consistent read of the
+-- ledger already contains (AvailabilityIndexService skips those when they are delivered after a rebuild).
+create table booking_outbox_relayed (
+    id tinyint not null,
+    last_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+insert into booking_outbox_relayed (id, last_id) values (1, 0);
@@ -0,0 +1,15 @@
+-- Ids of the booking events the relay published in the last booking.events.relayed-retention-minutes, inserted
+-- in the same transaction that deletes them from booking_outbox. A consistent read of both tables lists every
+-- event whose transaction had committed by then, whatever order the ids committed in, so it tells exactly which
+-- events a read of the ledger already contains. Replaces the single relayed-through id of V8, which could not
+-- tell a lower id committing late from one relayed long ago.
+drop table if exists booking_outbox_relayed;
+
+create table relayed_booking_events (
+    id bigint not null,
+    car_id bigint not null,
+    relayed_at datetime(6) not null,
+    primary key (id),
+    key idx_relayed_booking_events_car (car_id),
+    key idx_relayed_booking_events_relayed_at (relayed_at)
+) engine=InnoDB;
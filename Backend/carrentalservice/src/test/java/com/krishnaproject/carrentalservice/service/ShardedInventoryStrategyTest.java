@@ -0,0 +1,277 @@
+package com.krishnaproject.carrentalservice.service;
+
+import com.krishnaproject.carrentalservice.entity.Car;
+import com.krishnaproject.carrentalservice.exception.InventoryUnavailableException;
+import com.krishnaproject.carrentalservice.repository.CarRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Drives the shards through the strategy's own methods, with the car table and the ledger replaced by maps.
+// A test "transaction" is a set of synchronizations collected while the work runs and completed later.
+class ShardedInventoryStrategyTest {
+
+    private static final LocalDate START = LocalDate.now().plusDays(10);
+    private static final LocalDate END = START.plusDays(2);
+
+    private final CarRepository carRepository = mock(CarRepository.class);
+    private final InventoryWriteBehind writeBehind = mock(InventoryWriteBehind.class);
+
+    private final Map<Long, Car> cars = new HashMap<>();
+    // What InventoryWriteBehind.heldByDay reports per car: the committed ledger plus its queue
+    private final Map<Long, Map<LocalDate, Integer>> ledger = new HashMap<>();
+
+    private ShardedInventoryStrategy strategy;
+
+    @BeforeEach
+    void start() {
+        when(carRepository.findById(anyLong())).thenAnswer(call -> Optional.ofNullable(cars.get(call.<Long>getArgument(0))));
+        when(carRepository.findAllById(any())).thenAnswer(call -> {
+            List<Car> found = new ArrayList<>();
+            for (Long id : call.<Iterable<Long>>getArgument(0)) {
+                if (cars.containsKey(id)) {
+                    found.add(cars.get(id));
+                }
+            }
+            return found;
+        });
+        when(writeBehind.heldByDay(anyLong(), any()))
+                .thenAnswer(call -> new HashMap<>(ledger.getOrDefault(call.<Long>getArgument(0), Map.of())));
+
+        strategy = newStrategy(2000);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        strategy.stop();
+    }
+
+    private ShardedInventoryStrategy newStrategy(long timeoutMs) {
+        ShardedInventoryStrategy created = new ShardedInventoryStrategy();
+        ReflectionTestUtils.setField(created, "carRepository", carRepository);
+        ReflectionTestUtils.setField(created, "writeBehind", writeBehind);
+        ReflectionTestUtils.setField(created, "shardCount", 2);
+        ReflectionTestUtils.setField(created, "queueCapacity", 64);
+        ReflectionTestUtils.setField(created, "timeoutMs", timeoutMs);
+        created.start();
+        return created;
+    }
+
+    private void addCar(long id, int count) {
+        Car car = new Car();
+        car.setId(id);
+        car.setCount(count);
+        cars.put(id, car);
+    }
+
+    private long carOnShard(int shard, long after) {
+        for (long id = after + 1; ; id++) {
+            Integer index = ReflectionTestUtils.invokeMethod(strategy, "shardFor", id);
+            if (index == shard) {
+                return id;
+            }
+        }
+    }
+
+    // Runs the work as if inside a booking transaction that stays open; complete it with finish
+    private static List<TransactionSynchronization> open(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void finish(List<TransactionSynchronization> transaction, boolean committed) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(transaction, committed
+                ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    @Test
+    void holdsUnitsUpToTheCarsCount() {
+        addCar(1, 2);
+        ledger.put(1L, Map.of(START, 1));
+
+        strategy.reserve(1L, START, END);
+        assertThrows(InventoryUnavailableException.class, () -> strategy.reserve(1L, START, END));
+        // Days outside the loaded hold are still free
+        strategy.reserve(1L, END.plusDays(1), END.plusDays(3));
+    }
+
+    @Test
+    void rolledBackBookingGivesItsUnitsBack() {
+        addCar(1, 1);
+
+        finish(open(() -> strategy.reserve(1L, START, END)), false);
+
+        strategy.reserve(1L, START, END);
+        assertThrows(InventoryUnavailableException.class, () -> strategy.reserve(1L, START, END));
+    }
+
+    @Test
+    void committedReleaseFreesTheDays() {
+        addCar(1, 1);
+        strategy.reserve(1L, START, END);
+
+        finish(open(() -> strategy.release(1L, START, END)), true);
+
+        strategy.reserve(1L, START, END);
+    }
+
+    @Test
+    void groupOnOneShardIsAllOrNothing() {
+        long first = carOnShard(0, 0);
+        long second = carOnShard(0, first);
+        addCar(first, 1);
+        addCar(second, 1);
+        strategy.reserve(second, START, START);
+
+        assertThrows(InventoryUnavailableException.class,
+                () -> strategy.reserveAll(Map.of(first, 1, second, 1), START, END));
+        strategy.reserve(first, START, END);
+    }
+
+    @Test
+    void groupOverSeveralShardsGivesBackTheShardsTakenWhenALaterOneIsSoldOut() {
+        long onFirstShard = carOnShard(0, 0);
+        long onSecondShard = carOnShard(1, 0);
+        addCar(onFirstShard, 1);
+        addCar(onSecondShard, 1);
+        strategy.reserve(onSecondShard, END, END);
+
+        assertThrows(InventoryUnavailableException.class,
+                () -> strategy.reserveAll(Map.of(onFirstShard, 1, onSecondShard, 1), START, END));
+
+        // The first shard was taken and must have been given back
+        strategy.reserve(onFirstShard, START, END);
+        assertThrows(InventoryUnavailableException.class, () -> strategy.reserve(onFirstShard, START, START));
+    }
+
+    @Test
+    void groupOverSeveralShardsIsReleasedWhenTheBookingRollsBack() {
+        long onFirstShard = carOnShard(0, 0);
+        long onSecondShard = carOnShard(1, 0);
+        addCar(onFirstShard, 1);
+        addCar(onSecondShard, 2);
+
+        List<Car> taken = new ArrayList<>();
+        finish(open(() -> taken.addAll(strategy.reserveAll(Map.of(onFirstShard, 1, onSecondShard, 2), START, END))),
+                false);
+        assertEquals(List.of(onFirstShard, onSecondShard), taken.stream().map(Car::getId).sorted().toList());
+
+        strategy.reserveAll(Map.of(onFirstShard, 1, onSecondShard, 2), START, END);
+    }
+
+    // A reserve whose caller gave up while the shard was busy must leave the stock alone once it runs
+    @Test
+    void timedOutReserveTakesNoUnits() throws InterruptedException {
+        strategy.stop();
+        strategy = newStrategy(200);
+
+        long blocker = carOnShard(0, 0);
+        long car = carOnShard(0, blocker);
+        addCar(blocker, 1);
+        addCar(car, 2);
+        strategy.reserve(car, START, END);
+
+        // Loading the blocker's days stalls the shard thread until released
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        when(writeBehind.heldByDay(any(), any())).thenAnswer(call -> new HashMap<LocalDate, Integer>() {
+            @Override
+            public int size() {
+                if (Thread.currentThread().getName().startsWith("inventory-shard-")) {
+                    stalled.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.size();
+            }
+        });
+        Thread loader = new Thread(() -> assertThrows(RuntimeException.class, () -> strategy.reserve(blocker, START, END)));
+        loader.start();
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+        RuntimeException busy = assertThrows(RuntimeException.class, () -> strategy.reserve(car, START, END));
+        assertEquals("Booking engine is busy. Please try again.", busy.getMessage());
+
+        resume.countDown();
+        loader.join();
+
+        // One unit was held before the stall; the timed-out reserve did not take the second
+        strategy.reserve(car, START, END);
+        assertThrows(InventoryUnavailableException.class, () -> strategy.reserve(car, START, END));
+    }
+
+    // The reconciliation evicts a car while a booking holding it has not committed: the ledger does not show
+    // that hold yet, so the car must not be reloaded from it before the booking finishes
+    @Test
+    void evictWaitsForOpenHoldsBeforeTheCarIsReloaded() {
+        addCar(1, 1);
+        List<TransactionSynchronization> booking = open(() -> strategy.reserve(1L, START, END));
+
+        strategy.evict(1L);
+        RuntimeException busy = assertThrows(RuntimeException.class, () -> strategy.reserve(1L, START, END));
+        assertEquals("Car is busy. Please try again.", busy.getMessage());
+
+        // The booking commits: its hold is now in the ledger's queue, and the car is dropped
+        ledger.put(1L, Map.of(START, 1, START.plusDays(1), 1, END, 1));
+        finish(booking, true);
+
+        assertThrows(InventoryUnavailableException.class, () -> strategy.reserve(1L, START, END));
+    }
+
+    @Test
+    void evictedCarIsReloadedFromTheLedger() {
+        addCar(1, 1);
+        strategy.reserve(1L, START, END);
+
+        // The reconciliation found that hold was never in the ledger
+        strategy.evict(1L);
+
+        strategy.reserve(1L, START, END);
+    }
+
+    // A committed release that reaches the ledger before its shard is told must not be given back twice
+    @Test
+    void carIsNotLoadedWhileAReleaseOfItIsOpen() {
+        addCar(1, 1);
+        ledger.put(1L, Map.of(START, 1));
+        List<TransactionSynchronization> cancellation = open(() -> strategy.release(1L, START, START));
+
+        RuntimeException busy = assertThrows(RuntimeException.class, () -> strategy.reserve(1L, START, START));
+        assertEquals("Car is busy. Please try again.", busy.getMessage());
+
+        ledger.put(1L, Map.of());
+        finish(cancellation, true);
+
+        strategy.reserve(1L, START, START);
+        assertThrows(InventoryUnavailableException.class, () -> strategy.reserve(1L, START, START));
+    }
+}
@@ -0,0 +1,189 @@
+package com.krishnaproject.carrentalservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilityIndexTest {
+
+    private static final long FIRST_DAY = 20_000;
+    // Four bitmap words, the last one partly used
+    private static final int DAYS = 200;
+
+    private final AvailabilityIndex index = new AvailabilityIndex(FIRST_DAY, DAYS, 4);
+
+    private long[] available(long cityId, int from, int to) {
+        long[] cars = index.availableCars(cityId, FIRST_DAY + from, FIRST_DAY + to);
+        Arrays.sort(cars);
+        return cars;
+    }
+
+    @Test
+    void soldOutDayOnEitherSideOfAWordBoundary() {
+        index.putCar(1, 10, 1);
+        index.putCar(2, 10, 1);
+        index.setReserved(1, FIRST_DAY + 63, 1);
+        index.setReserved(2, FIRST_DAY + 64, 1);
+
+        assertArrayEquals(new long[] {2}, available(10, 0, 63));
+        assertArrayEquals(new long[] {1}, available(10, 64, 127));
+        assertArrayEquals(new long[] {}, available(10, 63, 64));
+        assertArrayEquals(new long[] {1, 2}, available(10, 65, 199));
+        assertArrayEquals(new long[] {1, 2}, available(10, 0, 62));
+        // A range spanning a whole middle word
+        index.setReserved(1, FIRST_DAY + 63, 0);
+        index.setReserved(2, FIRST_DAY + 64, 0);
+        index.setReserved(1, FIRST_DAY + 100, 1);
+        assertArrayEquals(new long[] {2}, available(10, 10, 150));
+        assertArrayEquals(new long[] {1, 2}, available(10, 129, 199));
+    }
+
+    // Random bookings checked against a plain per-day count, for ranges of every alignment
+    @Test
+    void rangesAndCityTotalsMatchAPlainModel() {
+        Random random = new Random(11);
+        int cars = 30;
+        Map<Long, Long> cityOf = new HashMap<>();
+        Map<Long, Integer> capacityOf = new HashMap<>();
+        int[][] held = new int[cars][DAYS];
+        for (long car = 0; car < cars; car++) {
+            cityOf.put(car, car % 3);
+            capacityOf.put(car, 1 + random.nextInt(3));
+            index.putCar(car, car % 3, capacityOf.get(car));
+        }
+
+        for (int step = 0; step < 3000; step++) {
+            long car = random.nextInt(cars);
+            int from = random.nextInt(DAYS + 20) - 10;
+            int to = from + random.nextInt(30);
+            int delta = random.nextBoolean() ? 1 : -1;
+            index.addReserved(car, FIRST_DAY + from, FIRST_DAY + to, delta);
+            for (int day = Math.max(0, from); day <= Math.min(DAYS - 1, to); day++) {
+                held[(int) car][day] = Math.max(0, held[(int) car][day] + delta);
+            }
+        }
+
+        for (int q = 0; q < 500; q++) {
+            long city = random.nextInt(3);
+            int from = random.nextInt(DAYS);
+            int to = from + random.nextInt(DAYS - from);
+            long[] expected = cityOf.keySet().stream()
+                    .filter(car -> cityOf.get(car) == city)
+                    .filter(car -> {
+                        for (int day = from; day <= to; day++) {
+                            if (held[car.intValue()][day] >= capacityOf.get(car)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    })
+                    .mapToLong(Long::longValue).sorted().toArray();
+            assertArrayEquals(expected, available(city, from, to), "city " + city + " days " + from + "-" + to);
+        }
+
+        for (long city = 0; city < 3; city++) {
+            for (int day = 0; day < DAYS; day++) {
+                int freeCars = 0;
+                int freeUnits = 0;
+                for (long car = city; car < cars; car += 3) {
+                    int free = Math.max(0, capacityOf.get(car) - held[(int) car][day]);
+                    freeUnits += free;
+                    freeCars += free > 0 ? 1 : 0;
+                }
+                assertEquals(new AvailabilityIndex.CityAvailability(freeCars, freeUnits),
+                        index.cityAvailability(city, FIRST_DAY + day), "city " + city + " day " + day);
+            }
+        }
+    }
+
+    @Test
+    void removedCarsSlotIsReusedWithAClearRow() {
+        index.putCar(1, 10, 1);
+        index.addReserved(1, FIRST_DAY, FIRST_DAY + DAYS - 1, 1);
+        index.removeCar(1);
+
+        index.putCar(2, 20, 2);
+
+        assertEquals(1, index.size());
+        assertNull(index.cityOf(1));
+        assertFalse(index.hasCity(10));
+        assertArrayEquals(new long[] {2}, available(20, 0, DAYS - 1));
+        assertEquals(new AvailabilityIndex.CityAvailability(1, 2), index.cityAvailability(20, FIRST_DAY + 5));
+        assertEquals(new AvailabilityIndex.CityAvailability(0, 0), index.cityAvailability(10, FIRST_DAY + 5));
+    }
+
+    @Test
+    void movingACarOrChangingItsCapacityMovesItsTotals() {
+        index.putCar(1, 10, 2);
+        index.putCar(3, 10, 1);
+        index.setReserved(1, FIRST_DAY + 70, 1);
+
+        index.putCar(1, 20, 2);
+        assertEquals(new AvailabilityIndex.CityAvailability(1, 1), index.cityAvailability(10, FIRST_DAY + 70));
+        assertEquals(new AvailabilityIndex.CityAvailability(1, 1), index.cityAvailability(20, FIRST_DAY + 70));
+        assertEquals(20L, index.cityOf(1));
+
+        // Capacity down to what is held: that day is now sold out
+        index.putCar(1, 20, 1);
+        assertArrayEquals(new long[] {}, available(20, 60, 80));
+        assertEquals(new AvailabilityIndex.CityAvailability(0, 0), index.cityAvailability(20, FIRST_DAY + 70));
+
+        // A car without capacity is never offered
+        index.putCar(4, 20, 0);
+        assertArrayEquals(new long[] {1}, available(20, 0, 69));
+    }
+
+    @Test
+    void replaceCarSetsTheWholeRowAtOnce() {
+        index.putCar(1, 10, 2);
+        index.addReserved(1, FIRST_DAY, FIRST_DAY + 150, 1);
+
+        int[] row = new int[DAYS];
+        row[130] = 2;
+        index.replaceCar(1, 10, 2, row);
+
+        assertArrayEquals(new long[] {1}, available(10, 0, 129));
+        assertArrayEquals(new long[] {}, available(10, 128, 131));
+        assertEquals(new AvailabilityIndex.CityAvailability(1, 2), index.cityAvailability(10, FIRST_DAY + 5));
+        assertEquals(new AvailabilityIndex.CityAvailability(0, 0), index.cityAvailability(10, FIRST_DAY + 130));
+    }
+
+    @Test
+    void rangesOutsideTheHorizonAreNotAnswered() {
+        index.putCar(1, 10, 1);
+        // Updates outside the horizon are dropped, the part inside is kept
+        index.setReserved(1, FIRST_DAY + DAYS, 1);
+        index.addReserved(1, FIRST_DAY - 5, FIRST_DAY + 1, 1);
+
+        assertTrue(index.covers(FIRST_DAY, FIRST_DAY + DAYS - 1));
+        assertFalse(index.covers(FIRST_DAY - 1, FIRST_DAY));
+        assertFalse(index.covers(FIRST_DAY, FIRST_DAY + DAYS));
+        assertFalse(index.covers(FIRST_DAY + 5, FIRST_DAY + 4));
+        assertThrows(IllegalArgumentException.class, () -> index.availableCars(10, FIRST_DAY, FIRST_DAY + DAYS));
+        assertThrows(IllegalArgumentException.class, () -> index.cityAvailability(10, FIRST_DAY - 1));
+        assertArrayEquals(new long[] {}, available(10, 0, 1));
+        assertArrayEquals(new long[] {1}, available(10, 2, DAYS - 1));
+    }
+
+    @Test
+    void growsPastTheExpectedCars() {
+        for (long car = 0; car < 100; car++) {
+            index.putCar(car, car % 2, 1);
+        }
+        index.setReserved(99, FIRST_DAY + 199, 1);
+
+        assertEquals(100, index.size());
+        assertEquals(49, available(1, 190, 199).length);
+        assertEquals(new AvailabilityIndex.CityAvailability(50, 50), index.cityAvailability(0, FIRST_DAY + 199));
+    }
+}
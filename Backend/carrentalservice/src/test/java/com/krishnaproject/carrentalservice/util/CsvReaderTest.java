@@ -0,0 +1,112 @@
+package com.krishnaproject.carrentalservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    // Each record as its line number followed by its fields
+    private static List<List<String>> read(Reader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            List<String> record = new ArrayList<>();
+            record.add(String.valueOf(csv.recordLine()));
+            record.addAll(fields);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static List<List<String>> read(String text) throws IOException {
+        return read(new StringReader(text));
+    }
+
+    // Hands out one character per call, so every quote and line break falls on a buffer refill
+    private static Reader oneCharAtATime(String text) {
+        return new Reader() {
+            private int position;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (position == text.length()) {
+                    return -1;
+                }
+                buffer[offset] = text.charAt(position++);
+                return 1;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        String text = "name,details\n" +
+                "\"Swift, VXi\",\"says \"\"hi\"\"\"\n" +
+                "\"two\nlines\",x\n";
+
+        assertEquals(List.of(
+                List.of("1", "name", "details"),
+                List.of("2", "Swift, VXi", "says \"hi\""),
+                List.of("3", "two\nlines", "x")), read(text));
+    }
+
+    @Test
+    void lineNumbersCountLineBreaksInsideQuotesAndSkippedBlankLines() throws IOException {
+        String text = "a,b\r\n" +
+                "\r\n" +
+                "\"multi\r\nline\r\nvalue\",1\r\n" +
+                "\n" +
+                "last,2";
+
+        List<List<String>> records = read(text);
+        assertEquals(List.of("1", "a", "b"), records.get(0));
+        assertEquals(List.of("3", "multi\r\nline\r\nvalue", "1"), records.get(1));
+        assertEquals(List.of("7", "last", "2"), records.get(2));
+        assertEquals(3, records.size());
+    }
+
+    @Test
+    void emptyFieldsAndTrailingCommaAreKept() throws IOException {
+        assertEquals(List.of(List.of("1", "", "x", "")), read(",x,\n"));
+        assertEquals(List.of(List.of("1", "", "")), read("\"\",\n"));
+    }
+
+    @Test
+    void bufferRefillsInTheMiddleOfQuotesGiveTheSameRecords() throws IOException {
+        String text = "\"a \"\"quoted\"\" word\",\"x\ny\"\r\nplain,\"\"\"\"\n";
+
+        assertEquals(read(text), read(oneCharAtATime(text)));
+        assertEquals(List.of("1", "a \"quoted\" word", "x\ny"), read(text).get(0));
+        assertEquals(List.of("3", "plain", "\""), read(text).get(1));
+    }
+
+    @Test
+    void unterminatedQuoteNamesTheLineItStartedOn() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("ok,1\nbad,\"never\nclosed\n"));
+        csv.next();
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, csv::next);
+        assertTrue(error.getMessage().endsWith("line 2"), error.getMessage());
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertNull(new CsvReader(new StringReader("")).next());
+        assertNull(new CsvReader(new StringReader("\n\r\n\n")).next());
+    }
+}
@@ -0,0 +1,142 @@
+package com.krishnaproject.carrentalservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FacetIndexTest {
+
+    private final FacetIndex<String> index = new FacetIndex<>(List.of("brand", "fuel"));
+
+    private void add(long key, String brand, String fuel, double price) {
+        index.upsert(key, "car" + key, Map.of("brand", brand, "fuel", fuel), price);
+    }
+
+    private List<String> byPrice(Double min, Double max, boolean descending, int offset, int limit) {
+        return index.search(Map.of(), min, max, descending, offset, limit).items();
+    }
+
+    @Test
+    void removedSlotIsReusedWithoutLeavingItsOldFacetsOrPrice() {
+        add(1, "audi", "petrol", 10);
+        add(2, "bmw", "diesel", 20);
+        add(3, "audi", "diesel", 30);
+
+        index.remove(2);
+        add(4, "tata", "ev", 5);
+
+        assertEquals(3, index.size());
+        assertEquals(List.of("car4", "car1", "car3"), byPrice(null, null, false, 0, 10));
+
+        FacetIndex.Result<String> all = index.search(Map.of(), null, null, false, 0, 10);
+        assertEquals(Map.of("audi", 2, "tata", 1), all.facets().get("brand"));
+        assertEquals(Map.of("petrol", 1, "diesel", 1, "ev", 1), all.facets().get("fuel"));
+        // The removed document's price is gone from the sorted array
+        assertEquals(List.of(), byPrice(15.0, 25.0, false, 0, 10));
+    }
+
+    @Test
+    void upsertOfAnExistingKeyReplacesTheDocument() {
+        add(1, "audi", "petrol", 10);
+        add(1, "bmw", "ev", 40);
+
+        assertEquals(1, index.size());
+        FacetIndex.Result<String> all = index.search(Map.of(), null, null, false, 0, 10);
+        assertEquals(Map.of("bmw", 1), all.facets().get("brand"));
+        assertEquals(List.of(), byPrice(null, 20.0, false, 0, 10));
+        assertEquals(List.of("car1"), byPrice(40.0, 40.0, false, 0, 10));
+    }
+
+    @Test
+    void priceRangeIncludesBothEndsAndEqualPrices() {
+        add(1, "a", "x", 10);
+        add(2, "a", "x", 20);
+        add(3, "a", "x", 20);
+        add(4, "a", "x", 30);
+
+        assertEquals(List.of("car2", "car3"), byPrice(20.0, 20.0, false, 0, 10));
+        assertEquals(List.of("car1", "car2", "car3"), byPrice(null, 20.0, false, 0, 10));
+        assertEquals(List.of("car2", "car3", "car4"), byPrice(20.0, null, false, 0, 10));
+        assertEquals(List.of("car2", "car3", "car4"), byPrice(10.5, 30.0, false, 0, 10));
+        assertEquals(List.of(), byPrice(30.5, null, false, 0, 10));
+        assertEquals(List.of(), byPrice(25.0, 15.0, false, 0, 10));
+        assertEquals(2, index.search(Map.of(), 20.0, 20.0, false, 0, 10).total());
+    }
+
+    // The range bitmap is built a 64-slot word at a time; slots on both sides of each word edge must land
+    @Test
+    void priceRangeAcrossBitmapWordBoundaries() {
+        for (int key = 0; key < 200; key++) {
+            add(key, "a", "x", key);
+        }
+
+        FacetIndex.Result<String> range = index.search(Map.of(), 63.0, 128.0, false, 0, 1000);
+        assertEquals(66, range.total());
+        assertEquals("car63", range.items().get(0));
+        assertEquals("car64", range.items().get(1));
+        assertEquals("car128", range.items().get(65));
+    }
+
+    @Test
+    void cachedPriceRangeIsDroppedOnWrite() {
+        add(1, "a", "x", 10);
+        assertEquals(1, index.search(Map.of(), 5.0, 15.0, false, 0, 10).total());
+
+        add(2, "a", "x", 12);
+        assertEquals(2, index.search(Map.of(), 5.0, 15.0, false, 0, 10).total());
+
+        index.remove(1);
+        assertEquals(List.of("car2"), byPrice(5.0, 15.0, false, 0, 10));
+    }
+
+    @Test
+    void descendingPagesWalkFromTheHighestPrice() {
+        for (int key = 1; key <= 7; key++) {
+            add(key, key % 2 == 0 ? "even" : "odd", "x", key * 10);
+        }
+
+        List<String> pages = new ArrayList<>();
+        for (int offset = 0; offset < 7; offset += 3) {
+            pages.addAll(byPrice(null, null, true, offset, 3));
+        }
+        assertEquals(List.of("car7", "car6", "car5", "car4", "car3", "car2", "car1"), pages);
+
+        // Within a price range, with a filter, and past the last page
+        Map<String, Set<String>> odd = Map.of("brand", Set.of("odd"));
+        assertEquals(List.of("car5", "car3"), index.search(odd, 20.0, 60.0, true, 0, 5).items());
+        assertEquals(List.of("car3"), index.search(odd, 20.0, 60.0, true, 1, 5).items());
+        assertEquals(List.of(), index.search(odd, 20.0, 60.0, true, 2, 5).items());
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnFilterOnly() {
+        add(1, "audi", "petrol", 10);
+        add(2, "audi", "diesel", 20);
+        add(3, "bmw", "diesel", 30);
+        add(4, "bmw", "ev", 40);
+
+        FacetIndex.Result<String> result = index.search(
+                Map.of("brand", Set.of("audi"), "fuel", Set.of("diesel", "ev")), null, null, false, 0, 10);
+
+        assertEquals(List.of("car2"), result.items());
+        assertEquals(1, result.total());
+        // brand counts apply the fuel filter only; fuel counts apply the brand filter only
+        assertEquals(Map.of("audi", 1, "bmw", 2), result.facets().get("brand"));
+        assertEquals(Map.of("petrol", 1, "diesel", 1), result.facets().get("fuel"));
+    }
+
+    @Test
+    void unknownFacetValueMatchesNothing() {
+        add(1, "audi", "petrol", 10);
+
+        FacetIndex.Result<String> result = index.search(Map.of("brand", Set.of("kia")), null, null, false, 0, 10);
+        assertEquals(0, result.total());
+        assertFalse(result.facets().get("fuel").containsKey("petrol"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.krishnaproject.carrentalservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void firesOnTheFirstTickAtOrAfterTheDeadline() {
+        // Ticks at 1000, 1010, 1020...; the start is not on a tick
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 1003);
+        wheel.schedule("on-tick", 1020);
+        wheel.schedule("between", 1021);
+
+        assertEquals(List.of(), wheel.advance(1019));
+        assertEquals(List.of("on-tick"), wheel.advance(1029));
+        assertEquals(List.of("between"), wheel.advance(1030));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlineIsReturnedByTheNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 1000);
+        wheel.schedule("late", 500);
+        wheel.schedule("now", 1000);
+
+        assertEquals(2, wheel.size());
+        assertEquals(List.of("late", "now"), wheel.advance(1000));
+        assertEquals(0, wheel.size());
+    }
+
+    // With 4 slots of 1 ms the levels span 4, 16, 64 and 256 ms, so these deadlines start three and four
+    // levels up and have to cascade down through every finer level before they fire
+    @Test
+    void cascadesThroughEveryLevelWithoutFiringEarlyOrLate() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1, 4, 0);
+        List<Integer> deadlines = List.of(3, 4, 15, 16, 17, 63, 64, 65, 100, 255, 256, 300);
+        for (int deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (int now = 0; now <= 300; now++) {
+            List<Integer> fired = wheel.advance(now);
+            assertEquals(deadlines.contains(now) ? List.of(now) : List.of(), fired, "at " + now);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    // Entries scheduled after the wheel has moved land in overflow levels whose slots are not aligned with
+    // the root's position; random deadlines and random jumps must each fire on the first advance past them
+    @Test
+    void randomSchedulesAndJumpsMatchTheDeadlines() {
+        Random random = new Random(7);
+        long tick = 5;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(tick, 4, 2);
+        Map<Integer, Long> firstTick = new HashMap<>();
+        long now = 2;
+        int next = 0;
+
+        while (now < 20_000) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                long deadline = now - 20 + random.nextInt(3000);
+                wheel.schedule(next, deadline);
+                // The first tick at or after the deadline, or this moment if that tick has passed
+                long fireAt = Math.max(((deadline + tick - 1) / tick) * tick, now - now % tick);
+                firstTick.put(next++, fireAt);
+            }
+
+            long previous = now;
+            now += random.nextInt(40);
+            List<Integer> fired = wheel.advance(now);
+            for (int value : fired) {
+                long expected = firstTick.remove(value);
+                assertTrue(expected <= now, value + " fired before its deadline");
+                assertTrue(expected >= previous - previous % tick, value + " fired late");
+            }
+            for (Map.Entry<Integer, Long> waiting : firstTick.entrySet()) {
+                assertTrue(waiting.getValue() > now, waiting.getKey() + " missed its tick");
+            }
+            assertEquals(firstTick.size(), wheel.size());
+        }
+    }
+
+    @Test
+    void manyEntriesInOneSlotAllFire() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            wheel.schedule(i, 5000);
+            values.add(i);
+        }
+
+        assertEquals(List.of(), wheel.advance(4999));
+        List<Integer> fired = new ArrayList<>(wheel.advance(5000));
+        fired.sort(null);
+        assertEquals(values, fired);
+    }
+}
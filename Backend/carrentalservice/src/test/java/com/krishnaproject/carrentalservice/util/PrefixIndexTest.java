@@ -0,0 +1,124 @@
+package com.krishnaproject.carrentalservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixIndexTest {
+
+    private record City(String name, int popularity) {}
+
+    // Found by the whole name and by each of its words, most popular first
+    private static PrefixIndex<City> index(List<City> cities, int maxResults) {
+        return new PrefixIndex<>(cities, city -> {
+            List<String> keys = new ArrayList<>();
+            keys.add(city.name());
+            keys.addAll(Arrays.asList(city.name().split("\\s+")));
+            return keys;
+        }, Comparator.comparingInt(City::popularity).reversed(), maxResults);
+    }
+
+    private static List<String> names(List<City> cities) {
+        return cities.stream().map(City::name).toList();
+    }
+
+    @Test
+    void matchesAnyWordOfTheName() {
+        PrefixIndex<City> index = index(List.of(
+                new City("New Delhi", 90), new City("Navi Mumbai", 50), new City("Mumbai", 100),
+                new City("Delhi Cantonment", 10)), 10);
+
+        assertEquals(List.of("Mumbai", "Navi Mumbai"), names(index.search("mum", 10)));
+        assertEquals(List.of("New Delhi", "Delhi Cantonment"), names(index.search("delhi", 10)));
+        assertEquals(List.of("New Delhi"), names(index.search("new d", 10)));
+        assertEquals(List.of(), names(index.search("new m", 10)));
+        // A name whose words both match is returned once
+        assertEquals(List.of("Mumbai", "Navi Mumbai"), names(index.search("mumbai", 10)));
+    }
+
+    @Test
+    void normalizesCaseAndWhitespace() {
+        PrefixIndex<City> index = index(List.of(new City("New  Delhi", 1)), 10);
+
+        assertEquals(List.of("New  Delhi"), names(index.search("  NEW\tdel", 10)));
+        assertEquals("new delhi", PrefixIndex.normalize(" New \n Delhi "));
+    }
+
+    // Prefixes up to three characters come from the precomputed lists, longer ones from the sorted keys; both
+    // must give the same answer as scanning every item, including at the three/four character boundary
+    @Test
+    void shortAndLongPrefixesAgreeWithAFullScan() {
+        Random random = new Random(42);
+        String letters = "abc";
+        List<City> cities = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            StringBuilder name = new StringBuilder();
+            int words = 1 + random.nextInt(2);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    name.append(' ');
+                }
+                int length = 1 + random.nextInt(6);
+                for (int c = 0; c < length; c++) {
+                    name.append(letters.charAt(random.nextInt(letters.length())));
+                }
+            }
+            cities.add(new City(name.toString(), random.nextInt(1000)));
+        }
+        int maxResults = 5;
+        PrefixIndex<City> index = index(cities, maxResults);
+
+        List<City> ranked = new ArrayList<>(cities);
+        ranked.sort(Comparator.comparingInt(City::popularity).reversed());
+        for (int length = 0; length <= 6; length++) {
+            for (int q = 0; q < 40; q++) {
+                StringBuilder prefix = new StringBuilder();
+                for (int c = 0; c < length; c++) {
+                    prefix.append(letters.charAt(random.nextInt(letters.length())));
+                }
+                String query = prefix.toString();
+
+                List<City> expected = ranked.stream()
+                        .filter(city -> Arrays.stream((city.name() + " " + city.name()).split(" "))
+                                .anyMatch(word -> word.startsWith(query)) || city.name().startsWith(query))
+                        .limit(maxResults)
+                        .toList();
+                // Ties in popularity may come back in either order, so compare the popularity sequence too
+                List<City> actual = index.search(query, 10);
+                assertEquals(expected.stream().map(City::popularity).toList(),
+                        actual.stream().map(City::popularity).toList(), "prefix '" + query + "'");
+                assertEquals(expected.size(), actual.size(), "prefix '" + query + "'");
+            }
+        }
+    }
+
+    @Test
+    void limitAndMaxResultsCapTheAnswer() {
+        List<City> cities = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cities.add(new City("pune " + i, i));
+        }
+        PrefixIndex<City> index = index(cities, 5);
+
+        assertEquals(3, index.search("pu", 3).size());
+        assertEquals(5, index.search("pu", 50).size());
+        assertEquals(5, index.search("pune", 50).size());
+        assertEquals(List.of("pune 19", "pune 18"), names(index.search("", 2)));
+        assertEquals(20, index.size());
+    }
+
+    @Test
+    void prefixPastEveryKeyFindsNothing() {
+        PrefixIndex<City> index = index(List.of(new City("agra", 1), new City("zirakpur", 1)), 5);
+
+        assertEquals(List.of(), index.search("zzzz", 5));
+        assertEquals(List.of(), index.search("aaaa", 5));
+        assertEquals(List.of("zirakpur"), names(index.search("zira", 5)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.krishnaproject.carrentalservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+    @Test
+    void rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(6));
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(1));
+    }
+
+    @Test
+    void offerFailsWhenFullAndSucceedsAgainOnceTheConsumerFreesASlot() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, buffer.drain(drained::add, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void drainStopsAtMax() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertFalse(buffer.isEmpty());
+    }
+
+    // Many producers racing on a small buffer, so it wraps thousands of times and is often full: every value
+    // arrives exactly once, and each producer's values arrive in the order it offered them
+    @Test
+    void manyProducersOneConsumerKeepEveryValueInProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        RingBuffer<long[]> buffer = new RingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        int[] rejected = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long seq = 0; seq < perProducer; seq++) {
+                    long[] value = {producer, seq};
+                    while (!buffer.offer(value)) {
+                        rejected[producer]++;
+                        // Lets the consumer run on a machine with few cores
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long[] next = new long[producers];
+        long received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        start.countDown();
+        while (received < (long) producers * perProducer) {
+            long[] value = buffer.poll();
+            if (value == null) {
+                assertTrue(System.nanoTime() < deadline, "Timed out after " + received + " values");
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) value[0];
+            assertEquals(next[producer], value[1], "Out of order for producer " + producer);
+            next[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] expected = new long[producers];
+        Arrays.fill(expected, perProducer);
+        assertArrayEquals(expected, next);
+        assertNull(buffer.poll());
+        assertTrue(Arrays.stream(rejected).sum() > 0, "The buffer never filled up");
+    }
+}
@@ -0,0 +1,75 @@
+package com.krishnaproject.carrentalservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TtlLruCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(2, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Reading "a" makes "b" the eldest
+        assertEquals(1, cache.get("a"));
+
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void expiredEntryIsAMissAndIsDropped() throws InterruptedException {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 1);
+        cache.put("a", 1);
+        Thread.sleep(20);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+        cache.put("a", 1);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    void removalsByKeyAndByEntry() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+        for (int i = 0; i < 6; i++) {
+            cache.put("car:" + i, i);
+        }
+        cache.put("city:1", 100);
+
+        cache.remove("car:0");
+        cache.removeIf(key -> key.startsWith("city:"));
+        int removed = cache.removeEntriesIf((key, value) -> value % 2 == 1);
+
+        assertEquals(3, removed);
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.get("car:2"));
+        assertEquals(4, cache.get("car:4"));
+        // Explicit removals are not evictions
+        assertEquals(0, cache.evictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
@@ -3,6 +3,7 @@ import com.krishnaproject.userservice.config.FeignConfig;
 import com.krishnaproject.userservice.dto.BookingRequestDto;
 import com.krishnaproject.userservice.dto.BookingResponseDto;
 import com.krishnaproject.userservice.dto.PaymentRequestDto;
+import com.krishnaproject.userservice.dto.PaymentResponseDto;
 import com.krishnaproject.userservice.model.Car;
 import com.krishnaproject.userservice.model.City;
 import org.springframework.cloud.openfeign.FeignClient;
@@ -25,10 +26,15 @@ public interface CarClient {
     List<City> getAllCities();
 
     @PostMapping("/cars/bookings")
-    BookingResponseDto createBooking(@RequestBody BookingRequestDto request);
+    BookingResponseDto createBooking(@RequestBody BookingRequestDto request,
+                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
 
     @PostMapping("/cars/bookings/payment")
-    BookingResponseDto confirmPayment(@RequestBody PaymentRequestDto payment);
+    PaymentResponseDto confirmPayment(@RequestBody PaymentRequestDto payment,
+                                      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
+
+    @GetMapping("/cars/bookings/payment/{paymentId}")
+    PaymentResponseDto getPayment(@PathVariable Long paymentId);
 
     @GetMapping("/cars/bookings/{bookingId}")
     BookingResponseDto getBooking(@PathVariable Long bookingId);
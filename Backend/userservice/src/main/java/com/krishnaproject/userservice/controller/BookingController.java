@@ -4,7 +4,9 @@ import com.krishnaproject.userservice.client.CarClient;
 import com.krishnaproject.userservice.dto.BookingRequestDto;
 import com.krishnaproject.userservice.dto.BookingResponseDto;
 import com.krishnaproject.userservice.dto.PaymentRequestDto;
+import com.krishnaproject.userservice.dto.PaymentResponseDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,14 +19,24 @@ public class BookingController {
     @Autowired
     private CarClient bookingClient;
 
+    // Idempotency-Key is passed through so car-service can recognize retried requests
     @PostMapping
-    public ResponseEntity<BookingResponseDto> createBooking(@RequestBody BookingRequestDto request) {
-        return ResponseEntity.ok(bookingClient.createBooking(request));
+    public ResponseEntity<BookingResponseDto> createBooking(
+            @RequestBody BookingRequestDto request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(bookingClient.createBooking(request, idempotencyKey));
     }
 
     @PostMapping("/payment")
-    public ResponseEntity<BookingResponseDto> confirmPayment(@RequestBody PaymentRequestDto payment) {
-        return ResponseEntity.ok(bookingClient.confirmPayment(payment));
+    public ResponseEntity<PaymentResponseDto> confirmPayment(
+            @RequestBody PaymentRequestDto payment,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(bookingClient.confirmPayment(payment, idempotencyKey));
+    }
+
+    @GetMapping("/payment/{paymentId}")
+    public ResponseEntity<PaymentResponseDto> getPayment(@PathVariable Long paymentId) {
+        return ResponseEntity.ok(bookingClient.getPayment(paymentId));
     }
 
     @GetMapping("/booking/{bookingId}")
@@ -0,0 +1,16 @@
+package com.krishnaproject.userservice.dto;
+
+import com.krishnaproject.userservice.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentResponseDto {
+    private Long paymentId;
+    private Long bookingId;
+    private PaymentStatus status;
+    private String message;
+}
@@ -188,6 +188,65 @@ useEffect(() => {
     setCardDetails((prev) => ({ ...prev, [field]: formattedValue }));
   };
 
+  // Listens on the booking's event stream (text/event-stream over fetch, since EventSource
+  // cannot send the Authorization header) until the booking leaves PENDING
+  const waitForPaymentResult = async (token) => {
+    const controller = new AbortController();
+    const timeout = setTimeout(() => controller.abort(), 60000);
+    try {
+      const response = await fetch(
+        `http://localhost:8080/cars/bookings/${booking.bookingId}/events`,
+        {
+          headers: {
+            Authorization: `Bearer ${token}`,
+            Accept: "text/event-stream",
+          },
+          signal: controller.signal,
+        }
+      );
+      if (!response.ok || !response.body) {
+        return null;
+      }
+
+      const reader = response.body.getReader();
+      const decoder = new TextDecoder();
+      let buffer = "";
+      while (true) {
+        const { value, done } = await reader.read();
+        if (done) {
+          return null;
+        }
+        buffer += decoder.decode(value, { stream: true });
+
+        let boundary;
+        while ((boundary = buffer.indexOf("\n\n")) !== -1) {
+          const rawEvent = buffer.slice(0, boundary);
+          buffer = buffer.slice(boundary + 2);
+          const data = rawEvent
+            .split("\n")
+            .filter((line) => line.startsWith("data:"))
+            .map((line) => line.slice(5))
+            .join("\n");
+          if (!data) {
+            continue;
+          }
+          const latest = JSON.parse(data);
+          if (latest.status !== "PENDING") {
+            controller.abort();
+            return { ...booking, status: latest.status };
+          }
+        }
+      }
+    } catch (error) {
+      if (error.name !== "AbortError") {
+        console.error("Booking stream error:", error);
+      }
+      return null;
+    } finally {
+      clearTimeout(timeout);
+    }
+  };
+
   const handlePayment = async (e) => {
     e.preventDefault();
 
@@ -265,17 +324,26 @@ useEffect(() => {
       );
 
       if (response.ok) {
-        const confirmedBooking = await response.json();
-        setShowAlert({
-          show: true,
-          message: "Payment successful! Redirecting to confirmation...",
-          type: "success",
-        });
-        setTimeout(() => {
-          navigate("/booking-success", {
-            state: { booking: confirmedBooking },
+        // Payment is authorized in the background; wait for the booking to leave PENDING
+        const settledBooking = await waitForPaymentResult(storedToken);
+        if (settledBooking?.status === "CONFIRMED") {
+          setShowAlert({
+            show: true,
+            message: "Payment successful! Redirecting to confirmation...",
+            type: "success",
           });
-        }, 2000);
+          setTimeout(() => {
+            navigate("/booking-success", {
+              state: { booking: settledBooking },
+            });
+          }, 2000);
+        } else {
+          setShowAlert({
+            show: true,
+            message: "Payment failed. Please try again.",
+            type: "danger",
+          });
+        }
       } else {
         const error = await response.json();
         setShowAlert({